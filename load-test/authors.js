@@ -0,0 +1,50 @@
+// Load test of the author API, run it once against the servlet/JPA and once against the reactive/R2DBC variant
+// with the same settings and compare the latencies and the request rate k6 prints at the end:
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e VUS=200 load-test/authors.js
+//
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const AUTHORS = parseInt(__ENV.AUTHORS || '100');
+const BOOKS_PER_AUTHOR = parseInt(__ENV.BOOKS_PER_AUTHOR || '100');
+
+export const options = {
+    scenarios: {
+        reads: {
+            executor: 'constant-vus',
+            vus: parseInt(__ENV.VUS || '200'),
+            duration: __ENV.DURATION || '2m',
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+const json = { headers: { 'Content-Type': 'application/json' } };
+
+// both variants support the single row endpoints, so seed through them
+export function setup() {
+    const ids = [];
+    for (let i = 0; i < AUTHORS; i++) {
+        const author = http.post(`${BASE_URL}/api/authors`,
+            JSON.stringify({ firstName: `Firstname ${i}`, lastName: `Lastname ${i}` }), json).json();
+        for (let j = 0; j < BOOKS_PER_AUTHOR; j++) {
+            http.post(`${BASE_URL}/api/authors/${author.id}/books`,
+                JSON.stringify({ title: `Book ${i}.${j}`, price: 10 + j % 90, publishDate: '2024-01-01' }), json);
+        }
+        ids.push(author.id);
+    }
+    return { ids };
+}
+
+export default function (data) {
+    const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+    check(http.get(`${BASE_URL}/api/authors/${id}`, { tags: { name: 'author' } }),
+        { 'author 200': (r) => r.status === 200 });
+    check(http.get(`${BASE_URL}/api/authors/${id}/books`, { tags: { name: 'books' } }),
+        { 'books 200': (r) => r.status === 200 });
+}
@@ -0,0 +1,49 @@
+// Overload test of the admission control, drives uncached database reads well beyond what the connection pool
+// serves and checks that the admitted requests keep a bounded p99 while the rest is rejected at once with 503:
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e RATE=2000 load-test/overload.js
+//
+// Run it again with --app.admission.enabled=false to compare, the requests then queue for a connection
+// and time out after spring.datasource.hikari.connectionTimeout.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const RATE = parseInt(__ENV.RATE || '2000');
+const WORDS = ['spring', 'system', 'design', 'action', 'guide', 'data', 'java', 'boot'];
+
+export const options = {
+    scenarios: {
+        overload: {
+            executor: 'ramping-arrival-rate',
+            startRate: Math.floor(RATE / 10),
+            timeUnit: '1s',
+            preAllocatedVUs: 500,
+            maxVUs: 2000,
+            stages: [
+                { target: RATE, duration: '30s' },
+                { target: RATE, duration: __ENV.DURATION || '2m' },
+            ],
+        },
+    },
+    thresholds: {
+        // admitted requests, the rejected ones are not part of expected_response
+        'http_req_duration{expected_response:true}': ['p(99)<1000'],
+        // rejections come back without waiting for a connection
+        'http_req_duration{status:503}': ['p(99)<50'],
+        checks: ['rate>0.99'],
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+http.setResponseCallback(http.expectedStatuses(200));
+
+export default function () {
+    const response = Math.random() < 0.5
+        ? http.get(`${BASE_URL}/api/authors?include=books&limit=100`, { tags: { name: 'authors page' } })
+        : http.get(`${BASE_URL}/api/books/search?q=${WORDS[Math.floor(Math.random() * WORDS.length)]}`,
+            { tags: { name: 'book search' } });
+    check(response, {
+        'admitted or shed': (r) => r.status === 200 || (r.status === 503 && r.headers['Retry-After'] !== undefined),
+    });
+}
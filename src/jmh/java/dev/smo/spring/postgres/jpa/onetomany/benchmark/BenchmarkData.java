@@ -0,0 +1,63 @@
+package dev.smo.spring.postgres.jpa.onetomany.benchmark;
+
+import dev.smo.spring.postgres.jpa.onetomany.entities.Author;
+import dev.smo.spring.postgres.jpa.onetomany.entities.Book;
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorWithBooksDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Realistic looking test data shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static Author author(long id) {
+        return Author.builder()
+                .id(id)
+                .firstName("Firstname " + id)
+                .lastName("Lastname " + id)
+                .build();
+    }
+
+    static Book book(long id) {
+        return Book.builder()
+                .id(id)
+                .title("The collected works, volume " + id)
+                .price(BigDecimal.valueOf(1000 + id % 9000, 2))
+                .publishDate(LocalDate.of(1950, 1, 1).plusDays(id % 25_000))
+                .build();
+    }
+
+    static List<AuthorDTO> authorDTOs(int size) {
+        return IntStream.range(0, size)
+                .mapToObj(i -> new AuthorDTO((long) i, "Firstname " + i, "Lastname " + i))
+                .toList();
+    }
+
+    static List<BookDTO> bookDTOs(int size) {
+        return IntStream.range(0, size)
+                .mapToObj(i -> book(i))
+                .map(book -> new BookDTO(book.getId(), book.getTitle(), book.getPrice(), book.getPublishDate()))
+                .toList();
+    }
+
+    static List<AuthorWithBooksDTO> authorsWithBooks(int authors, int booksPerAuthor) {
+        return IntStream.range(0, authors)
+                .mapToObj(i -> AuthorWithBooksDTO.builder()
+                        .firstName("Firstname " + i)
+                        .lastName("Lastname " + (i % 100))
+                        .books(bookDTOs(booksPerAuthor).stream()
+                                .map(book -> BookDTO.builder().title(book.getTitle()).price(book.getPrice()).publishDate(book.getPublishDate()).build())
+                                .toList())
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,59 @@
+package dev.smo.spring.postgres.jpa.onetomany.benchmark;
+
+import dev.smo.spring.postgres.jpa.onetomany.entities.Author;
+import dev.smo.spring.postgres.jpa.onetomany.entities.Book;
+import dev.smo.spring.postgres.jpa.onetomany.mapper.AuthorMapperImpl;
+import dev.smo.spring.postgres.jpa.onetomany.mapper.BookMapperImpl;
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping throughput per entity, run with {@code -prof gc} to see the allocated bytes per mapping ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    private final AuthorMapperImpl authorMapper = new AuthorMapperImpl();
+    private final BookMapperImpl bookMapper = new BookMapperImpl();
+
+    private Author author;
+    private Book book;
+    private AuthorDTO authorDTO;
+    private BookDTO bookDTO;
+
+    @Setup
+    public void setUp() {
+        author = BenchmarkData.author(42);
+        book = BenchmarkData.book(42);
+        authorDTO = authorMapper.toAuthorDTO(author);
+        bookDTO = bookMapper.toBookDTO(book);
+    }
+
+    @Benchmark
+    public AuthorDTO toAuthorDTO() {
+        return authorMapper.toAuthorDTO(author);
+    }
+
+    @Benchmark
+    public Author toAuthor() {
+        return authorMapper.toAuthor(authorDTO);
+    }
+
+    @Benchmark
+    public BookDTO toBookDTO() {
+        return bookMapper.toBookDTO(book);
+    }
+
+    @Benchmark
+    public Book toBook() {
+        return bookMapper.toBook(bookDTO);
+    }
+}
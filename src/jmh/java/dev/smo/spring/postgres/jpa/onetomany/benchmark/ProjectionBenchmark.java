@@ -0,0 +1,93 @@
+package dev.smo.spring.postgres.jpa.onetomany.benchmark;
+
+import dev.smo.spring.postgres.jpa.onetomany.SpringPostgresJpaOnetomanyApplication;
+import dev.smo.spring.postgres.jpa.onetomany.TestcontainersConfiguration;
+import dev.smo.spring.postgres.jpa.onetomany.mapper.AuthorMapper;
+import dev.smo.spring.postgres.jpa.onetomany.mapper.BookMapper;
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorRepository;
+import dev.smo.spring.postgres.jpa.onetomany.repository.BookRepository;
+import dev.smo.spring.postgres.jpa.onetomany.service.AuthorImportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading 10k rows as managed entities mapped to DTOs versus selecting straight into DTOs, both in read-only
+ * transactions. Compare {@code gc.alloc.rate.norm} for the allocations per read.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectionBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private AuthorRepository authorRepository;
+    private BookRepository bookRepository;
+    private AuthorMapper authorMapper;
+    private BookMapper bookMapper;
+    private TransactionTemplate readOnly;
+    private long authorWithBooksId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SpringApplication.from(SpringPostgresJpaOnetomanyApplication::main)
+                .with(TestcontainersConfiguration.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.cache.type=none",
+                        "--app.cache.second-level.enabled=false",
+                        "--app.db.init.enabled=false")
+                .getApplicationContext();
+        authorRepository = context.getBean(AuthorRepository.class);
+        bookRepository = context.getBean(BookRepository.class);
+        authorMapper = context.getBean(AuthorMapper.class);
+        bookMapper = context.getBean(BookMapper.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        var importService = context.getBean(AuthorImportService.class);
+        importService.importAuthors(BenchmarkData.authorsWithBooks(1, ROWS).iterator());
+        importService.importAuthors(BenchmarkData.authorsWithBooks(ROWS - 1, 0).iterator());
+        authorWithBooksId = authorRepository.findAuthorDtos().getFirst().getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<AuthorDTO> authorsAsEntities() {
+        return readOnly.execute(status -> authorRepository.findAll(Sort.by("id")).stream()
+                .map(authorMapper::toAuthorDTO).toList());
+    }
+
+    @Benchmark
+    public List<AuthorDTO> authorsAsDtos() {
+        return readOnly.execute(status -> authorRepository.findAuthorDtos());
+    }
+
+    @Benchmark
+    public List<BookDTO> booksAsEntities() {
+        return readOnly.execute(status -> bookRepository.findBooksByAuthorId(authorWithBooksId).stream()
+                .map(bookMapper::toBookDTO).toList());
+    }
+
+    @Benchmark
+    public List<BookDTO> booksAsDtos() {
+        return readOnly.execute(status -> bookRepository.findBookDtosByAuthorId(authorWithBooksId));
+    }
+}
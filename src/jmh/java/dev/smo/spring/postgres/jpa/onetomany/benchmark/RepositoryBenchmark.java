@@ -0,0 +1,83 @@
+package dev.smo.spring.postgres.jpa.onetomany.benchmark;
+
+import dev.smo.spring.postgres.jpa.onetomany.SpringPostgresJpaOnetomanyApplication;
+import dev.smo.spring.postgres.jpa.onetomany.TestcontainersConfiguration;
+import dev.smo.spring.postgres.jpa.onetomany.entities.Author;
+import dev.smo.spring.postgres.jpa.onetomany.entities.Book;
+import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorRepository;
+import dev.smo.spring.postgres.jpa.onetomany.repository.BookRepository;
+import dev.smo.spring.postgres.jpa.onetomany.service.AuthorImportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository queries against PostgreSQL in a Testcontainers container, with all caches switched off.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+
+    private static final int AUTHORS = 1_000;
+    private static final int BOOKS_PER_AUTHOR = 10;
+
+    private ConfigurableApplicationContext context;
+    private AuthorRepository authorRepository;
+    private BookRepository bookRepository;
+    private long minAuthorId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SpringApplication.from(SpringPostgresJpaOnetomanyApplication::main)
+                .with(TestcontainersConfiguration.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.cache.type=none",
+                        "--app.cache.second-level.enabled=false",
+                        "--app.db.init.enabled=false")
+                .getApplicationContext();
+        authorRepository = context.getBean(AuthorRepository.class);
+        bookRepository = context.getBean(BookRepository.class);
+        context.getBean(AuthorImportService.class)
+                .importAuthors(BenchmarkData.authorsWithBooks(AUTHORS, BOOKS_PER_AUTHOR).iterator());
+        minAuthorId = authorRepository.findAll().stream().mapToLong(Author::getId).min().orElseThrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private long randomAuthorId() {
+        return minAuthorId + ThreadLocalRandom.current().nextInt(AUTHORS);
+    }
+
+    @Benchmark
+    public List<Author> findAll() {
+        return authorRepository.findAll();
+    }
+
+    @Benchmark
+    public Optional<Author> findByIdWithBooks() {
+        return authorRepository.findByIdWithBooks(randomAuthorId());
+    }
+
+    @Benchmark
+    public List<Book> findBooksByAuthorId() {
+        return bookRepository.findBooksByAuthorId(randomAuthorId());
+    }
+
+    @Benchmark
+    public List<Author> findByFirstName() {
+        return authorRepository.findByFirstName("Firstname " + ThreadLocalRandom.current().nextInt(AUTHORS));
+    }
+}
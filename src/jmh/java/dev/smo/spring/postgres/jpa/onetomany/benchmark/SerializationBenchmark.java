@@ -0,0 +1,46 @@
+package dev.smo.spring.postgres.jpa.onetomany.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the list responses, with the same {@link ObjectMapper} setup Spring Boot uses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"100", "10000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<AuthorDTO> authors;
+    private List<BookDTO> books;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        authors = BenchmarkData.authorDTOs(size);
+        books = BenchmarkData.bookDTOs(size);
+    }
+
+    @Benchmark
+    public byte[] serializeAuthors() throws Exception {
+        return objectMapper.writeValueAsBytes(authors);
+    }
+
+    @Benchmark
+    public byte[] serializeBooks() throws Exception {
+        return objectMapper.writeValueAsBytes(books);
+    }
+}
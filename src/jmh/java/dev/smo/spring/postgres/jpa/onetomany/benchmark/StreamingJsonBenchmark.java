@@ -0,0 +1,73 @@
+package dev.smo.spring.postgres.jpa.onetomany.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.smo.spring.postgres.jpa.onetomany.SpringPostgresJpaOnetomanyApplication;
+import dev.smo.spring.postgres.jpa.onetomany.TestcontainersConfiguration;
+import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorRepository;
+import dev.smo.spring.postgres.jpa.onetomany.service.AuthorImportService;
+import dev.smo.spring.postgres.jpa.onetomany.service.BookService;
+import dev.smo.spring.postgres.jpa.onetomany.service.JsonStreamingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The JSON of the books of an author written by Jackson from the {@code BookDTO} list versus written by
+ * {@link JsonStreamingService} straight from the JDBC rows, both into a discarding stream. Divide
+ * {@code gc.alloc.rate.norm} by the number of books for the bytes allocated per book.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamingJsonBenchmark {
+
+    @Param({"100", "10000"})
+    public int books;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private JsonStreamingService jsonStreamingService;
+    private ObjectMapper objectMapper;
+    private long authorId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SpringApplication.from(SpringPostgresJpaOnetomanyApplication::main)
+                .with(TestcontainersConfiguration.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.cache.type=none",
+                        "--app.cache.second-level.enabled=false",
+                        "--app.db.init.enabled=false")
+                .getApplicationContext();
+        bookService = context.getBean(BookService.class);
+        jsonStreamingService = context.getBean(JsonStreamingService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        context.getBean(AuthorImportService.class).importAuthors(BenchmarkData.authorsWithBooks(1, books).iterator());
+        authorId = context.getBean(AuthorRepository.class).findAuthorDtos().getFirst().getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void dtos() throws Exception {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), bookService.findAllBooksForAuthorWithId(authorId));
+    }
+
+    @Benchmark
+    public void streaming() throws Exception {
+        try (var generator = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+            jsonStreamingService.writeBooksOfAuthor(authorId, generator);
+        }
+    }
+}
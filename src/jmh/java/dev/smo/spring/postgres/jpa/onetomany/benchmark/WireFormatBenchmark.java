@@ -0,0 +1,73 @@
+package dev.smo.spring.postgres.jpa.onetomany.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding a book list as JSON and as CBOR, with mappers set up like the HTTP message converters.
+ * The payload sizes are reported by {@link WireFormatSizes}, outside of the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    private static final TypeReference<List<BookDTO>> BOOK_LIST = new TypeReference<>() {
+    };
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private ObjectMapper json;
+    private ObjectMapper cbor;
+    private List<BookDTO> books;
+    private byte[] jsonBytes;
+    private byte[] cborBytes;
+
+    @Setup
+    public void setUp() throws Exception {
+        json = jsonMapper();
+        cbor = cborMapper();
+        books = BenchmarkData.bookDTOs(size);
+        jsonBytes = json.writeValueAsBytes(books);
+        cborBytes = cbor.writeValueAsBytes(books);
+    }
+
+    static ObjectMapper jsonMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    static ObjectMapper cborMapper() {
+        return Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws Exception {
+        return json.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] encodeCbor() throws Exception {
+        return cbor.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public List<BookDTO> decodeJson() throws Exception {
+        return json.readValue(jsonBytes, BOOK_LIST);
+    }
+
+    @Benchmark
+    public List<BookDTO> decodeCbor() throws Exception {
+        return cbor.readValue(cborBytes, BOOK_LIST);
+    }
+}
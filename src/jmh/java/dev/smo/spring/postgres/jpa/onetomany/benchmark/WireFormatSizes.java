@@ -0,0 +1,23 @@
+package dev.smo.spring.postgres.jpa.onetomany.benchmark;
+
+/**
+ * Prints the payload sizes of the book lists of {@link WireFormatBenchmark} as JSON and as CBOR, a size does not
+ * change between invocations, so it is no benchmark of its own.
+ */
+public final class WireFormatSizes {
+
+    private WireFormatSizes() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        var json = WireFormatBenchmark.jsonMapper();
+        var cbor = WireFormatBenchmark.cborMapper();
+        for (var size : new int[] {1000, 100000}) {
+            var books = BenchmarkData.bookDTOs(size);
+            var jsonBytes = json.writeValueAsBytes(books).length;
+            var cborBytes = cbor.writeValueAsBytes(books).length;
+            System.out.printf("%d books: JSON %d bytes, CBOR %d bytes (%.0f%%)%n", size, jsonBytes, cborBytes,
+                    100.0 * cborBytes / jsonBytes);
+        }
+    }
+}
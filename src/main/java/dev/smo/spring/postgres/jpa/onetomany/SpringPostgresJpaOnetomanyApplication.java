@@ -32,6 +32,11 @@ public class SpringPostgresJpaOnetomanyApplication {
 	@ConditionalOnProperty(prefix = "app", name = "db.init.enabled", havingValue = "true")
 	public CommandLineRunner initApplication() {
 		return args -> {
+			// the schema is kept between restarts, only an empty database gets the bootstrap data
+			if (authorRepository.count() > 0) {
+				log.debug("Application already initialized");
+				return;
+			}
 			log.debug("Initializing application...");
 			Author a1 = Author.builder()
 					.firstName("Craig")
@@ -0,0 +1,104 @@
+package dev.smo.spring.postgres.jpa.onetomany.admission;
+
+/**
+ * Concurrency limit of one endpoint that adapts to its latency with additive increase and multiplicative decrease.
+ * <p>
+ * Requests above the limit are rejected at once instead of queueing for a database connection. Waiting for a
+ * connection shows up as a growing latency, so the latency of the recent requests is compared with the long term
+ * latency of the endpoint, like TCP Vegas compares the round trip time with its minimum. While the recent latency
+ * stays within the tolerance and the limit is actually used, it grows by one per limit requests, when it exceeds the
+ * tolerance or a request fails with a server error, the limit is multiplied with the backoff ratio, at most once
+ * per limit requests.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    // exponential moving averages over roughly the last 10 and 500 requests
+    private static final double SHORT_WEIGHT = 0.1;
+    private static final double LONG_WEIGHT = 0.002;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final double backoffRatio;
+
+    // guarded by this, never blocks, so a virtual thread does not pin its carrier for long
+    private double limit;
+    private int inFlight;
+    private double shortLatency;
+    private double longLatency;
+    private int releasedSinceDecrease;
+
+    AdaptiveConcurrencyLimit(AdmissionControlProperties properties) {
+        this.minLimit = properties.getMinLimit();
+        this.maxLimit = properties.getMaxLimit();
+        this.latencyTolerance = properties.getLatencyTolerance();
+        this.backoffRatio = properties.getBackoffRatio();
+        this.limit = Math.clamp(properties.getInitialLimit(), minLimit, maxLimit);
+    }
+
+    /**
+     * @return {@code false} if the limit is reached, otherwise the request must call one of the release methods
+     */
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Releases a request that completed in the given time.
+     *
+     * @param failed whether the request failed with a server error, e.g. because it timed out waiting for a connection
+     */
+    synchronized void release(long latencyNanos, boolean failed) {
+        // the in flight count before this request completed, used to only grow a limit that is reached
+        int concurrency = inFlight--;
+        releasedSinceDecrease++;
+        if (failed) {
+            decrease();
+            return;
+        }
+        if (longLatency == 0) {
+            shortLatency = latencyNanos;
+            longLatency = latencyNanos;
+            return;
+        }
+        shortLatency += SHORT_WEIGHT * (latencyNanos - shortLatency);
+        longLatency += LONG_WEIGHT * (latencyNanos - longLatency);
+        if (shortLatency > longLatency * latencyTolerance) {
+            decrease();
+        } else if (concurrency * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+        if (longLatency > shortLatency * latencyTolerance) {
+            // the long term latency of an overload recovers slowly, let it follow the recent latency faster
+            longLatency = (longLatency + shortLatency) / 2;
+        }
+    }
+
+    /**
+     * Releases a request without taking its time into account, e.g. a streamed response.
+     */
+    synchronized void release() {
+        inFlight--;
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private void decrease() {
+        // the requests that were in flight at the last decrease saw the same overload, like TCP only decrease once
+        // per round trip
+        if (releasedSinceDecrease >= (int) limit) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+            releasedSinceDecrease = 0;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package dev.smo.spring.postgres.jpa.onetomany.admission;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Sheds load in front of the connection pool, a request beyond the global limit or the limit of its endpoint fails at
+ * once instead of waiting up to {@code spring.datasource.hikari.connectionTimeout} for a connection.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@EnableConfigurationProperties(AdmissionControlProperties.class)
+@ConditionalOnProperty(prefix = "app.admission", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfiguration {
+
+    @Bean
+    WebMvcConfigurer admissionControlConfigurer(AdmissionControlProperties properties, MeterRegistry meterRegistry,
+                                                DataSource dataSource) throws SQLException {
+        var interceptor = new AdmissionControlInterceptor(properties, meterRegistry, globalLimit(properties, dataSource));
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                // before the request statistics, so a rejected request is not counted
+                registry.addInterceptor(interceptor)
+                        .addPathPatterns("/api/**")
+                        .order(-1);
+            }
+        };
+    }
+
+    /**
+     * The global limit in proportion to the primary pool, also behind the routing data source of the replica
+     * configuration, whose read-only transactions use their own pool.
+     */
+    static int globalLimit(AdmissionControlProperties properties, DataSource dataSource) throws SQLException {
+        if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+            return properties.getMaxLimit();
+        }
+        var poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        return Math.max(1, (int) Math.ceil(poolSize * properties.getRequestsPerConnection()));
+    }
+}
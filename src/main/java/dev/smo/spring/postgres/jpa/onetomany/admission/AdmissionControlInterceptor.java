@@ -0,0 +1,143 @@
+package dev.smo.spring.postgres.jpa.onetomany.admission;
+
+import dev.smo.spring.postgres.jpa.onetomany.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Admits a request only while all endpoints together are below the global limit and its endpoint, the method and the
+ * request mapping, is below its {@link AdaptiveConcurrencyLimit}, otherwise it is rejected with 503 and a
+ * {@code Retry-After} header. The global limit is fixed and derived from the size of the connection pool, the
+ * endpoint limits alone would let every endpoint queue up to its limit for the same few connections.
+ * <p>
+ * The limit, the requests in flight and the rejected requests of every endpoint are published as
+ * {@code app.admission.limit}, {@code app.admission.in.flight} and {@code app.admission.rejected}, the global limit
+ * and its requests in flight as {@code app.admission.global.limit} and {@code app.admission.global.in.flight}.
+ */
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String STARTED = AdmissionControlInterceptor.class.getName() + ".started";
+    private static final String LIMIT = AdmissionControlInterceptor.class.getName() + ".limit";
+
+    private final AdmissionControlProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final int globalLimit;
+    private final Semaphore global;
+    private final Map<Endpoint, AdaptiveConcurrencyLimit> limits = new ConcurrentHashMap<>();
+    private final Map<Endpoint, Counter> rejected = new ConcurrentHashMap<>();
+
+    private record Endpoint(String method, String uri) {
+    }
+
+    /**
+     * @param globalLimit concurrent requests admitted across all endpoints
+     */
+    public AdmissionControlInterceptor(AdmissionControlProperties properties, MeterRegistry meterRegistry, int globalLimit) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.globalLimit = globalLimit;
+        this.global = new Semaphore(globalLimit);
+        Gauge.builder("app.admission.global.limit", () -> globalLimit)
+                .description("Concurrent requests admitted across all endpoints")
+                .register(meterRegistry);
+        Gauge.builder("app.admission.global.in.flight", global, semaphore -> globalLimit - semaphore.availablePermits())
+                .description("Admitted requests in flight across all endpoints")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        var endpoint = endpoint(request);
+        var limit = limits.computeIfAbsent(endpoint, this::register);
+        if (!global.tryAcquire()) {
+            rejected.get(endpoint).increment();
+            throw new ServiceUnavailableException("Too many concurrent requests, retry later!", properties.getRetryAfter());
+        }
+        if (!limit.tryAcquire()) {
+            global.release();
+            rejected.get(endpoint).increment();
+            throw new ServiceUnavailableException("Too many concurrent requests, retry later!", properties.getRetryAfter());
+        }
+        request.setAttribute(STARTED, System.nanoTime());
+        request.setAttribute(LIMIT, limit);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // a streamed response holds its connection until it is written, so it keeps its permits until the async
+        // processing completes, but its duration says nothing about the latency of the endpoint
+        if (request.getAttribute(LIMIT) instanceof AdaptiveConcurrencyLimit limit) {
+            request.removeAttribute(LIMIT);
+            request.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    limit.release();
+                    global.release();
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(LIMIT) instanceof AdaptiveConcurrencyLimit limit) {
+            request.removeAttribute(LIMIT);
+            var latency = System.nanoTime() - (long) request.getAttribute(STARTED);
+            limit.release(latency, ex != null || response.getStatus() >= 500);
+            global.release();
+        }
+    }
+
+    private AdaptiveConcurrencyLimit register(Endpoint endpoint) {
+        var limit = new AdaptiveConcurrencyLimit(properties);
+        Gauge.builder("app.admission.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Concurrent requests admitted per endpoint")
+                .tag("method", endpoint.method())
+                .tag("uri", endpoint.uri())
+                .register(meterRegistry);
+        Gauge.builder("app.admission.in.flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Admitted requests in flight per endpoint")
+                .tag("method", endpoint.method())
+                .tag("uri", endpoint.uri())
+                .register(meterRegistry);
+        rejected.put(endpoint, Counter.builder("app.admission.rejected")
+                .description("Requests rejected because the endpoint reached its limit")
+                .tag("method", endpoint.method())
+                .tag("uri", endpoint.uri())
+                .register(meterRegistry));
+        return limit;
+    }
+
+    private static Endpoint endpoint(HttpServletRequest request) {
+        var pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return new Endpoint(request.getMethod(), pattern != null ? pattern.toString() : "UNKNOWN");
+    }
+}
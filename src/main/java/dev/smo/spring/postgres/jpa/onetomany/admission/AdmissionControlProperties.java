@@ -0,0 +1,48 @@
+package dev.smo.spring.postgres.jpa.onetomany.admission;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Concurrency limits of the {@code /api/**} endpoints, see {@link AdaptiveConcurrencyLimit}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.admission")
+public class AdmissionControlProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Concurrent requests per endpoint before the first latencies are known.
+     */
+    private int initialLimit = 20;
+
+    private int minLimit = 1;
+
+    private int maxLimit = 200;
+
+    /**
+     * Ratio of the recent to the long term latency of an endpoint above which its limit is decreased.
+     */
+    private double latencyTolerance = 2.0;
+
+    /**
+     * Factor the limit is multiplied with when it is decreased.
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * Concurrent requests across all endpoints per connection of the primary pool
+     * ({@code spring.datasource.hikari.maximum-pool-size}), above one as cached requests and the work before and
+     * after the queries do not hold a connection.
+     */
+    private double requestsPerConnection = 4.0;
+
+    /**
+     * Retry-After of rejected requests.
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+}
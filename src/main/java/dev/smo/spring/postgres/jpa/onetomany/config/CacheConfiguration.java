@@ -0,0 +1,19 @@
+package dev.smo.spring.postgres.jpa.onetomany.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Caches the mapped DTOs of the services in Caffeine, see {@code spring.cache.*} for size and time to live.
+ * The caching advice runs outside the transaction advice, so a hit never opens a transaction and an eviction
+ * only happens after the write was committed.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfiguration {
+
+    public static final String AUTHORS_CACHE = "authors";
+    public static final String AUTHOR_BOOKS_CACHE = "authorBooks";
+
+}
@@ -0,0 +1,24 @@
+package dev.smo.spring.postgres.jpa.onetomany.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Reads and writes the DTOs as CBOR for clients that send {@code Accept: application/cbor} or
+ * {@code Content-Type: application/cbor}, JSON stays the default.
+ * <p>
+ * Spring MVC registers a CBOR converter by itself once {@code jackson-dataformat-cbor} is present, but with a plain
+ * mapper. This one is built from Spring Boot's builder, so {@code spring.jackson.*} and the registered modules apply
+ * to both formats and a DTO is encoded with the same field names and date format.
+ */
+@Configuration(proxyBeanMethods = false)
+public class CborConfiguration {
+
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
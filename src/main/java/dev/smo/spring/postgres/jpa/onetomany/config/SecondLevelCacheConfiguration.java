@@ -0,0 +1,69 @@
+package dev.smo.spring.postgres.jpa.onetomany.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Hibernate second-level cache for the {@code Author} and {@code Book} entities, the {@code Author.books} collection
+ * and cacheable queries. Every region is a bounded Caffeine cache with a time to live, created up front so a
+ * misconfigured region fails on startup instead of silently growing without limits.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(SecondLevelCacheProperties.class)
+@ConditionalOnProperty(prefix = "app.cache.second-level", name = "enabled", havingValue = "true")
+public class SecondLevelCacheConfiguration {
+
+    // regions named in the @Cache annotations of the entities
+    private static final String AUTHOR_REGION = "author";
+    private static final String BOOK_REGION = "book";
+    private static final String AUTHOR_BOOKS_REGION = "author.books";
+
+    private static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    CacheManager secondLevelCacheManager(SecondLevelCacheProperties properties) {
+        var provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        var cacheManager = provider.getCacheManager(URI.create("hibernate-second-level-cache"), getClass().getClassLoader());
+        for (var region : List.of(AUTHOR_REGION, BOOK_REGION, AUTHOR_BOOKS_REGION, QUERY_RESULTS_REGION)) {
+            var configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(properties.getMaximumSize()));
+            configuration.setExpireAfterWrite(OptionalLong.of(properties.getTimeToLive().toNanos()));
+            configuration.setStatisticsEnabled(true);
+            cacheManager.createCache(region, configuration);
+        }
+        // the timestamps must outlive every cached query result, otherwise stale results could be returned
+        var timestamps = new CaffeineConfiguration<>();
+        timestamps.setStatisticsEnabled(true);
+        cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, timestamps);
+        return cacheManager;
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            // adding a book through Book.author must evict the cached Author.books collection of that author
+            hibernateProperties.put(AvailableSettings.AUTO_EVICT_COLLECTION_CACHE, true);
+            // hit and miss counts per region are published as hibernate.second.level.cache.* metrics
+            hibernateProperties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+}
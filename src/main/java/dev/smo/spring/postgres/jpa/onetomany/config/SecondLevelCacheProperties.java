@@ -0,0 +1,24 @@
+package dev.smo.spring.postgres.jpa.onetomany.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.cache.second-level")
+public class SecondLevelCacheProperties {
+
+    private boolean enabled;
+
+    /**
+     * Maximum number of entries per entity, collection and query region.
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * Time after which an entry is evicted once it was written.
+     */
+    private Duration timeToLive = Duration.ofMinutes(10);
+
+}
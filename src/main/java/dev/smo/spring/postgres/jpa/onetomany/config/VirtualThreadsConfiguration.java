@@ -0,0 +1,85 @@
+package dev.smo.spring.postgres.jpa.onetomany.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.smo.spring.postgres.jpa.onetomany.datasource.ReadYourWrites;
+import dev.smo.spring.postgres.jpa.onetomany.metrics.RequestStatistics;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.util.DriverInfo;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.thread.Threading;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Guards for {@code spring.threads.virtual.enabled=true}, which runs Tomcat requests and the application task
+ * executor (used for async MVC responses like the author export) on virtual threads.
+ * <p>
+ * A virtual thread that blocks inside a {@code synchronized} block pins its carrier thread. With only as many
+ * carriers as CPU cores, a few pinned threads stall the whole application.
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadsConfiguration {
+
+    /**
+     * {@code @Cacheable(sync = true)} computes a missing value inside a lock of Caffeine's map, a JDBC call in there
+     * pins the loading thread and every thread waiting for the same key. In async mode the value is loaded on its own
+     * virtual thread and the waiting threads park on a future instead. The load still counts towards the
+     * {@link RequestStatistics} of the request that triggered it and reads from the primary if that request has to,
+     * see {@link ReadYourWrites}.
+     */
+    @Bean
+    CacheManagerCustomizer<CaffeineCacheManager> virtualThreadsCacheManagerCustomizer(CacheProperties cacheProperties,
+                                                                                      CacheLoadExecutor cacheLoadExecutor) {
+        return cacheManager -> {
+            var spec = cacheProperties.getCaffeine().getSpec();
+            var caffeine = spec != null ? Caffeine.from(spec) : Caffeine.newBuilder();
+            var virtualThreads = cacheLoadExecutor.executor();
+            cacheManager.setCaffeine(caffeine.executor(task -> virtualThreads.execute(RequestStatistics.wrap(ReadYourWrites.wrap(task)))));
+            cacheManager.setAsyncCacheMode(true);
+        };
+    }
+
+    /**
+     * Closed with the context, which waits for the loads still running.
+     */
+    @Bean(destroyMethod = "close")
+    CacheLoadExecutor cacheLoadExecutor() {
+        return new CacheLoadExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * The virtual threads the cache values are loaded on. Not registered as an {@code Executor} bean itself, Spring
+     * Boot would back off from creating the application task executor then.
+     */
+    record CacheLoadExecutor(ExecutorService executor) implements AutoCloseable {
+
+        @Override
+        public void close() {
+            executor.close();
+        }
+    }
+
+    /**
+     * The PostgreSQL driver guards its socket I/O with {@code ReentrantLock} instead of {@code synchronized}
+     * since 42.6.0, older drivers pin a carrier thread for every running query.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void checkForPinning(ApplicationReadyEvent event) {
+        if (DriverInfo.MAJOR_VERSION < 42 || (DriverInfo.MAJOR_VERSION == 42 && DriverInfo.MINOR_VERSION < 6)) {
+            log.warn("PostgreSQL driver {} pins virtual threads during queries, use 42.6.0 or later", DriverInfo.DRIVER_VERSION);
+        }
+        var maximumPoolSize = event.getApplicationContext().getEnvironment()
+                .getProperty("spring.datasource.hikari.maximumPoolSize", Integer.class, 10);
+        log.info("Running on virtual threads, at most {} requests use the database at the same time", maximumPoolSize);
+    }
+}
@@ -1,11 +1,29 @@
 package dev.smo.spring.postgres.jpa.onetomany.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import dev.smo.spring.postgres.jpa.onetomany.exception.BadRequestException;
 import dev.smo.spring.postgres.jpa.onetomany.exception.ResourceNotFoundException;
+import dev.smo.spring.postgres.jpa.onetomany.metrics.QueryBudget;
 import dev.smo.spring.postgres.jpa.onetomany.model.AuthorDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorStatsDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorWithBooksDTO;
 import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookFilter;
+import dev.smo.spring.postgres.jpa.onetomany.model.CursorPage;
+import dev.smo.spring.postgres.jpa.onetomany.model.ImportResultDTO;
+import dev.smo.spring.postgres.jpa.onetomany.responsecache.ResponseCache;
+import dev.smo.spring.postgres.jpa.onetomany.responsecache.ResponseCacheVersions;
+import dev.smo.spring.postgres.jpa.onetomany.responsecache.Representations;
+import dev.smo.spring.postgres.jpa.onetomany.service.AuthorImportService;
 import dev.smo.spring.postgres.jpa.onetomany.service.AuthorService;
+import dev.smo.spring.postgres.jpa.onetomany.service.AuthorStatsService;
 import dev.smo.spring.postgres.jpa.onetomany.service.BookService;
+import dev.smo.spring.postgres.jpa.onetomany.service.JsonStreamingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,36 +31,83 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Tag(name = "Authors", description = "the Author Api")
+@Profile("!reactive")
 @RestController
 @RequestMapping("/api/authors")
 public class AuthorController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+
+    // endpoint names of app.json-streaming.endpoints
+    private static final String AUTHORS_ENDPOINT = "authors";
+    private static final String BOOKS_ENDPOINT = "books";
+
     private final AuthorService authorService;
     private final BookService bookService;
+    private final AuthorImportService authorImportService;
+    private final AuthorStatsService authorStatsService;
+    private final ObjectMapper objectMapper;
+    private final ResponseCache responseCache;
+    private final ResponseCacheVersions responseCacheVersions;
+    private final JsonStreamingService jsonStreamingService;
+    private final Set<String> jsonStreamingEndpoints;
 
-    public AuthorController(AuthorService authorService, BookService bookService) {
+    public AuthorController(AuthorService authorService, BookService bookService,
+                            AuthorImportService authorImportService, AuthorStatsService authorStatsService,
+                            ObjectMapper objectMapper, ResponseCache responseCache,
+                            ResponseCacheVersions responseCacheVersions, JsonStreamingService jsonStreamingService,
+                            @Value("${app.json-streaming.endpoints:}") Set<String> jsonStreamingEndpoints) {
         this.authorService = authorService;
         this.bookService = bookService;
+        this.authorImportService = authorImportService;
+        this.authorStatsService = authorStatsService;
+        this.objectMapper = objectMapper;
+        this.responseCache = responseCache;
+        this.responseCacheVersions = responseCacheVersions;
+        this.jsonStreamingService = jsonStreamingService;
+        this.jsonStreamingEndpoints = jsonStreamingEndpoints;
     }
 
     @Operation(summary = "Get a author by its id")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Found the author",
                     content = { @Content(mediaType = "application/json", schema = @Schema(implementation = AuthorDTO.class)) }),
+            @ApiResponse(responseCode = "304", description = "Author not modified since the ETag in If-None-Match", content = @Content),
             @ApiResponse(responseCode = "404", description = "Author not found", content = @Content) })
     @GetMapping("/{id}")
-    public ResponseEntity<AuthorDTO> get(@PathVariable("id") Long id) {
-        var author = authorService.findById(id)
+    @QueryBudget(max = 1, maxEntities = 0)
+    public ResponseEntity<AuthorDTO> get(@PathVariable("id") Long id, WebRequest request) {
+        // the ETag and the body come from the same read, a cached author is answered without any query
+        var found = authorService.findVersionedById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Author with id: '" + id + "' not found!"));
-
-        return ResponseEntity.ok(author);
+        var eTag = Representations.eTag(request, found.version());
+        if (Representations.notModified(request, eTag)) {
+            return Representations.notModified(eTag);
+        }
+        return Representations.ok(eTag).body(found.author());
     }
 
     @Operation(summary = "Get all authors", description = "fetches all author entities")
@@ -51,19 +116,187 @@ public class AuthorController {
                     content = { @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = AuthorDTO.class))) })
     })
     @GetMapping
-    public ResponseEntity<List<AuthorDTO>> getAll() {
-        var authors = authorService.findAll();
-        return ResponseEntity.ok(authors);
+    @QueryBudget(max = 1, maxEntities = 0)
+    public ResponseEntity<?> getAll(WebRequest request) {
+        if (streamsJson(AUTHORS_ENDPOINT, request)) {
+            return streamJson(Representations.ok(null), jsonStreamingService::writeAllAuthors);
+        }
+        var version = responseCacheVersions.current(ResponseCacheVersions.AUTHORS);
+        return responseCache.respond(request, ResponseCacheVersions.AUTHORS, version, false,
+                authorService::findAll);
+    }
+
+    @Operation(summary = "Get a page of authors", description = "fetches up to limit authors ordered by id, starting after the given cursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found the page of authors",
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPage.class)) }),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit", content = @Content)
+    })
+    @GetMapping(params = {"limit", "!include"})
+    @QueryBudget(max = 1, maxEntities = 0)
+    public ResponseEntity<CursorPage<AuthorDTO>> getPage(@RequestParam(name = "after", required = false) String after,
+                                                         @RequestParam("limit") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE + "!");
+        }
+        return ResponseEntity.ok(authorService.findPage(after, limit));
+    }
+
+    @Operation(summary = "Search authors by name", description = "finds authors whose name has words starting with the words of q or is similar to q, best matches first, starting after the given cursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found the page of authors",
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPage.class)) }),
+            @ApiResponse(responseCode = "400", description = "Invalid query, cursor or limit", content = @Content)
+    })
+    @GetMapping("/search")
+    @QueryBudget(max = 2, maxEntities = 0)
+    public ResponseEntity<CursorPage<AuthorDTO>> search(@RequestParam("q") String q,
+                                                        @RequestParam(name = "after", required = false) String after,
+                                                        @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_PAGE_SIZE) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_SEARCH_PAGE_SIZE + "!");
+        }
+        return ResponseEntity.ok(authorService.search(q, after, limit));
+    }
+
+    @Operation(summary = "Get a page of authors with their books", description = "fetches up to limit authors ordered by id, starting after the given cursor, and their books with a second query")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found the page of authors",
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPage.class)) }),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, limit or include", content = @Content)
+    })
+    @GetMapping(params = "include")
+    @QueryBudget(max = 2, maxEntities = 0)
+    public ResponseEntity<CursorPage<AuthorWithBooksDTO>> getPageWithBooks(@RequestParam(name = "after", required = false) String after,
+                                                                           @RequestParam(name = "limit", defaultValue = "100") int limit,
+                                                                           @RequestParam("include") String include) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE + "!");
+        }
+        var includeBooks = includesBooks(include);
+        var page = authorService.findPage(after, limit);
+        return ResponseEntity.ok(new CursorPage<>(withBooks(page.getContent(), includeBooks), page.getNextCursor()));
+    }
+
+    @Operation(summary = "Get many authors by their ids", description = "fetches up to " + MAX_BATCH_SIZE + " authors in the order of the ids, optionally with their books, ids not found are left out")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found the authors",
+                    content = { @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = AuthorWithBooksDTO.class))) }),
+            @ApiResponse(responseCode = "400", description = "No, too many or null ids or unknown include", content = @Content)
+    })
+    @PostMapping("/batch")
+    @QueryBudget(max = 2, maxEntities = 0)
+    public ResponseEntity<List<AuthorWithBooksDTO>> getBatch(@RequestBody List<Long> ids,
+                                                             @RequestParam(name = "include", required = false) String include) {
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_SIZE || ids.contains(null)) {
+            throw new BadRequestException("Between 1 and " + MAX_BATCH_SIZE + " ids are required!");
+        }
+        var includeBooks = includesBooks(include);
+        var authors = authorService.findAllByIds(new LinkedHashSet<>(ids));
+        return ResponseEntity.ok(withBooks(authors, includeBooks));
+    }
+
+    @Operation(summary = "Get the book stats of an author", description = "book count, min, max and average price and first and last publish date, aggregated by the database")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found the stats",
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = AuthorStatsDTO.class)) }),
+            @ApiResponse(responseCode = "404", description = "Author not found", content = @Content) })
+    @GetMapping("/{id}/stats")
+    @QueryBudget(max = 3, maxEntities = 0)
+    public ResponseEntity<AuthorStatsDTO> getStats(@PathVariable("id") Long id) {
+        var stats = authorStatsService.findByAuthorId(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Author with id: '" + id + "' not found!"));
+        return ResponseEntity.ok(stats);
+    }
+
+    @Operation(summary = "Get a page of book stats", description = "fetches the book stats of up to limit authors with books ordered by id, starting after the given cursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found the page of stats",
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPage.class)) }),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit", content = @Content)
+    })
+    @GetMapping("/stats")
+    @QueryBudget(max = 1, maxEntities = 0)
+    public ResponseEntity<CursorPage<AuthorStatsDTO>> getStatsPage(@RequestParam(name = "after", required = false) String after,
+                                                                   @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE + "!");
+        }
+        return ResponseEntity.ok(authorStatsService.findPage(after, limit));
+    }
+
+    @Operation(summary = "Export all authors with their books", description = "streams one author with its books per line as newline delimited JSON")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Exported all authors",
+                    content = { @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = AuthorWithBooksDTO.class)) })
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() {
+        var writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (var generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                var written = new int[1];
+                authorService.exportAllWithBooks(author -> {
+                    try {
+                        writer.writeValue(generator, author);
+                        generator.writeRaw('\n');
+                        if (++written[0] % EXPORT_FLUSH_INTERVAL == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @Operation(summary = "Get all books for author", description = "fetches all book entities for an author with a certain id")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Found all books",
-                    content = { @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = BookDTO.class))) })
+                    content = { @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = BookDTO.class))) }),
+            @ApiResponse(responseCode = "304", description = "Books not modified since the ETag in If-None-Match", content = @Content)
     })
     @GetMapping("/{id}/books")
-    public ResponseEntity<List<BookDTO>> getBooksForAuthorWithId(@PathVariable("id") Long id) {
-        return ResponseEntity.ok(bookService.findAllBooksForAuthorWithId(id));
+    @QueryBudget(max = 1, maxEntities = 0)
+    public ResponseEntity<?> getBooksForAuthorWithId(@PathVariable("id") Long id, WebRequest request) {
+        // adding a book increments the version of the author, so it also identifies the state of the books
+        var found = bookService.findVersionedBooksForAuthorWithId(id);
+        if (found.isEmpty()) {
+            return Representations.ok(null).body(List.of());
+        }
+        var version = found.get().version();
+        if (streamsJson(BOOKS_ENDPOINT, request)) {
+            var eTag = Representations.eTag(request, version);
+            if (Representations.notModified(request, eTag)) {
+                return Representations.notModified(eTag);
+            }
+            // the streamed rows are read after the version, so they are never older than the ETag
+            return streamJson(Representations.ok(eTag),
+                    generator -> jsonStreamingService.writeBooksOfAuthor(id, generator));
+        }
+        return responseCache.respond(request, "authors/" + id + "/books", version, true, () -> found.get().books());
+    }
+
+    @Operation(summary = "Get a page of books for author", description = "fetches up to limit books of an author in the price and publish date ranges, ordered by sort, starting after the given cursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found a page of books",
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPage.class)) }),
+            @ApiResponse(responseCode = "400", description = "Invalid sort, range, cursor or limit", content = @Content)
+    })
+    @GetMapping(value = "/{id}/books", params = "limit")
+    @QueryBudget(max = 2, maxEntities = 0)
+    public ResponseEntity<CursorPage<BookDTO>> getBooksPageForAuthorWithId(@PathVariable("id") Long id,
+                                                                           @ParameterObject BookFilter filter,
+                                                                           @RequestParam(name = "sort", defaultValue = "publishDate") String sort,
+                                                                           @RequestParam(name = "after", required = false) String after,
+                                                                           @RequestParam("limit") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE + "!");
+        }
+        return ResponseEntity.ok(bookService.findPageOfBooksForAuthorWithId(id, filter, sort, after, limit));
     }
 
     @Operation(summary = "Create author", description = "Creates an author")
@@ -72,6 +305,7 @@ public class AuthorController {
                     content = { @Content(mediaType = "application/json", schema =  @Schema(implementation = AuthorDTO.class)) })
     })
     @PostMapping
+    @QueryBudget(max = 2)
     public ResponseEntity<AuthorDTO> createAuthor(@RequestBody AuthorDTO authorDTO) {
         if (authorDTO.getId() != null) {
             throw new BadRequestException("Inserting ID with POST request is not allowed!");
@@ -80,10 +314,132 @@ public class AuthorController {
         return ResponseEntity.created(URI.create("/api/authors" + author.getId())).body(author);
     }
 
+    @Operation(summary = "Update author", description = "Updates the names of an author, pass its ETag as If-Match to only update the version you have seen")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Updated author",
+                    content = { @Content(mediaType = "application/json", schema =  @Schema(implementation = AuthorDTO.class)) }),
+            @ApiResponse(responseCode = "404", description = "Author not found", content = @Content),
+            @ApiResponse(responseCode = "412", description = "Author was modified in the meantime", content = @Content)
+    })
+    @PutMapping("/{id}")
+    @QueryBudget(max = 2, maxEntities = 1)
+    public ResponseEntity<AuthorDTO> updateAuthor(@RequestBody AuthorDTO authorDTO, @PathVariable("id") Long id,
+                                                  @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                  WebRequest request) {
+        if (authorDTO.getId() != null && !authorDTO.getId().equals(id)) {
+            throw new BadRequestException("Changing the ID with PUT request is not allowed!");
+        }
+        var updated = authorService.update(id, authorDTO, version(ifMatch))
+                .orElseThrow(() -> new ResourceNotFoundException("Author with id: '" + id + "' not found!"));
+        return Representations.ok(Representations.eTag(request, updated.version())).body(updated.author());
+    }
+
     @PostMapping("/{id}/books")
-    public ResponseEntity<BookDTO> createBookForAuthorWithId(@RequestBody BookDTO bookDTO, @PathVariable("id") Long id) {
-        var book = bookService.saveBookForAuthorWithId(bookDTO, id)
+    // the locking select, the version increment and the insert, with the summary table also addBook and insertFromBooks
+    @QueryBudget(max = 5)
+    public ResponseEntity<BookDTO> createBookForAuthorWithId(@RequestBody BookDTO bookDTO, @PathVariable("id") Long id,
+                                                             @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                  WebRequest request) {
+        var book = bookService.saveBookForAuthorWithId(bookDTO, id, version(ifMatch))
                 .orElseThrow(() -> new ResourceNotFoundException("Author with id: '" + id + "' not found!"));
         return ResponseEntity.created(URI.create("/api/authors" + book.getId())).body(book);
     }
+
+    @Operation(summary = "Import authors with their books", description = "inserts a JSON array of authors with nested books in one transaction using JDBC batching")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Imported all authors",
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = ImportResultDTO.class)) }),
+            @ApiResponse(responseCode = "400", description = "Author or book with ID", content = @Content)
+    })
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportResultDTO> importAuthors(@RequestBody List<AuthorWithBooksDTO> authors) {
+        return ResponseEntity.ok(authorImportService.importAuthors(authors.iterator()));
+    }
+
+    @Operation(summary = "Import authors with their books from a stream", description = "inserts newline delimited JSON authors with nested books while reading the request body")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Imported all authors",
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = ImportResultDTO.class)) }),
+            @ApiResponse(responseCode = "400", description = "Malformed line or author or book with ID", content = @Content)
+    })
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportResultDTO> importAuthorsStream(InputStream body) throws IOException {
+        try (MappingIterator<AuthorWithBooksDTO> authors = objectMapper.readerFor(AuthorWithBooksDTO.class).readValues(body)) {
+            return ResponseEntity.ok(authorImportService.importAuthors(authors));
+        } catch (RuntimeJsonMappingException e) {
+            throw new BadRequestException("Malformed author: " + e.getMessage());
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Malformed author: " + e.getOriginalMessage());
+        } catch (RuntimeException e) {
+            // the iterator wraps a line that is no valid JSON, a JsonParseException, in a plain RuntimeException
+            if (e.getCause() instanceof JsonProcessingException cause) {
+                throw new BadRequestException("Malformed author: " + cause.getOriginalMessage());
+            }
+            throw e;
+        }
+    }
+
+    private static boolean includesBooks(String include) {
+        if (include == null) {
+            return false;
+        }
+        if (!"books".equals(include)) {
+            throw new BadRequestException("Unsupported include: '" + include + "'!");
+        }
+        return true;
+    }
+
+    /**
+     * Adds the books to the authors with one query for all of them, the rows scale with authors + books
+     * and not with authors x books like a fetch join.
+     */
+    private List<AuthorWithBooksDTO> withBooks(List<AuthorDTO> authors, boolean includeBooks) {
+        var books = includeBooks
+                ? bookService.findAllBooksForAuthorsWithIds(authors.stream().map(AuthorDTO::getId).toList())
+                : Map.<Long, List<BookDTO>>of();
+        return authors.stream()
+                .map(author -> AuthorWithBooksDTO.builder()
+                        .id(author.getId())
+                        .firstName(author.getFirstName())
+                        .lastName(author.getLastName())
+                        .books(includeBooks ? books.getOrDefault(author.getId(), List.of()) : null)
+                        .build())
+                .toList();
+    }
+
+    private boolean streamsJson(String endpoint, WebRequest request) {
+        return jsonStreamingEndpoints.contains(endpoint) && Representations.prefersJson(request);
+    }
+
+    /**
+     * Writes the rows straight to the response instead of creating DTOs first, bypasses the response cache.
+     */
+    private ResponseEntity<StreamingResponseBody> streamJson(ResponseEntity.BodyBuilder response, JsonWriter writer) {
+        StreamingResponseBody body = out -> {
+            try (var generator = objectMapper.getFactory().createGenerator(out)) {
+                writer.write(generator);
+            }
+        };
+        return response.contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private interface JsonWriter {
+
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    /**
+     * The version in an If-Match header with a single strong ETag, {@code null} without a header or for {@code *}.
+     */
+    static Long version(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        // the ETag of any representation of the author, they all carry the same version
+        var version = Representations.version(ifMatch);
+        if (version == null) {
+            throw new BadRequestException("Invalid If-Match: '" + ifMatch + "'!");
+        }
+        return version;
+    }
 }
@@ -0,0 +1,48 @@
+package dev.smo.spring.postgres.jpa.onetomany.controller;
+
+import dev.smo.spring.postgres.jpa.onetomany.exception.BadRequestException;
+import dev.smo.spring.postgres.jpa.onetomany.metrics.QueryBudget;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.CursorPage;
+import dev.smo.spring.postgres.jpa.onetomany.service.BookService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Tag(name = "Books", description = "the Book Api")
+@Profile("!reactive")
+@RestController
+@RequestMapping("/api/books")
+public class BookController {
+
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+
+    private final BookService bookService;
+
+    public BookController(BookService bookService) {
+        this.bookService = bookService;
+    }
+
+    @Operation(summary = "Search books by title", description = "finds books whose title has words starting with the words of q or is similar to q, best matches first, starting after the given cursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found the page of books",
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPage.class)) }),
+            @ApiResponse(responseCode = "400", description = "Invalid query, cursor or limit", content = @Content)
+    })
+    @GetMapping("/search")
+    @QueryBudget(max = 2, maxEntities = 0)
+    public ResponseEntity<CursorPage<BookDTO>> search(@RequestParam("q") String q,
+                                                      @RequestParam(name = "after", required = false) String after,
+                                                      @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_PAGE_SIZE) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_SEARCH_PAGE_SIZE + "!");
+        }
+        return ResponseEntity.ok(bookService.search(q, after, limit));
+    }
+}
@@ -0,0 +1,67 @@
+package dev.smo.spring.postgres.jpa.onetomany.controller;
+
+import dev.smo.spring.postgres.jpa.onetomany.exception.ResourceNotFoundException;
+import dev.smo.spring.postgres.jpa.onetomany.ingest.BookIngestService;
+import dev.smo.spring.postgres.jpa.onetomany.metrics.QueryBudget;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.IngestStatusDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.UUID;
+
+@Tag(name = "Book Ingest", description = "asynchronous creation of books, enabled with app.ingest.enabled=true")
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "app.ingest", name = "enabled", havingValue = "true")
+@RestController
+public class BookIngestController {
+
+    private static final String RESPOND_ASYNC = "respond-async";
+
+    private final BookIngestService bookIngestService;
+
+    public BookIngestController(BookIngestService bookIngestService) {
+        this.bookIngestService = bookIngestService;
+    }
+
+    @Operation(summary = "Create a book asynchronously", description = "with Prefer: respond-async the book is journaled and written in the background, the author and its ETag in If-Match are checked then")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Accepted the book, poll the Location for its status",
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = IngestStatusDTO.class)) }),
+            @ApiResponse(responseCode = "503", description = "Too many books waiting to be written, retry after Retry-After seconds", content = @Content)
+    })
+    @PostMapping(path = "/api/authors/{id}/books", headers = "Prefer=" + RESPOND_ASYNC)
+    @QueryBudget(max = 0)
+    public ResponseEntity<IngestStatusDTO> createBookForAuthorWithId(@RequestBody BookDTO bookDTO, @PathVariable("id") Long id,
+                                                                     @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        var status = bookIngestService.submit(bookDTO, id, AuthorController.version(ifMatch));
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/books/ingest/" + status.getTrackingId()))
+                .header("Preference-Applied", RESPOND_ASYNC)
+                .body(status);
+    }
+
+    @Operation(summary = "Get the status of an asynchronously created book")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Pending, applied with the id of the book or rejected with the reason",
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = IngestStatusDTO.class)) }),
+            @ApiResponse(responseCode = "404", description = "Unknown tracking id", content = @Content)
+    })
+    @GetMapping("/api/books/ingest/{trackingId}")
+    @QueryBudget(max = 1, maxEntities = 0)
+    public ResponseEntity<IngestStatusDTO> getStatus(@PathVariable("trackingId") UUID trackingId) {
+        return bookIngestService.findStatus(trackingId)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResourceNotFoundException("Book with tracking id: '" + trackingId + "' not found!"));
+    }
+}
@@ -0,0 +1,92 @@
+package dev.smo.spring.postgres.jpa.onetomany.controller;
+
+import dev.smo.spring.postgres.jpa.onetomany.exception.BadRequestException;
+import dev.smo.spring.postgres.jpa.onetomany.exception.ResourceNotFoundException;
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import dev.smo.spring.postgres.jpa.onetomany.responsecache.Representations;
+import dev.smo.spring.postgres.jpa.onetomany.service.ReactiveAuthorService;
+import dev.smo.spring.postgres.jpa.onetomany.service.ReactiveBookService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+/**
+ * The core of the {@link AuthorController} API on WebFlux and R2DBC, active with the {@code reactive} profile: reading,
+ * creating and updating authors with their ETags and adding books. Paging, batch, export, import, search and stats
+ * are only served by the servlet variant.
+ */
+@Tag(name = "Authors", description = "the reactive Author Api")
+@Profile("reactive")
+@RestController
+@RequestMapping("/api/authors")
+public class ReactiveAuthorController {
+
+    private final ReactiveAuthorService authorService;
+    private final ReactiveBookService bookService;
+
+    public ReactiveAuthorController(ReactiveAuthorService authorService, ReactiveBookService bookService) {
+        this.authorService = authorService;
+        this.bookService = bookService;
+    }
+
+    @Operation(summary = "Get a author by its id")
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<AuthorDTO>> get(@PathVariable("id") Long id) {
+        // WebFlux answers a matching If-None-Match with 304 by itself
+        return authorService.findVersionedById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Author with id: '" + id + "' not found!")))
+                .map(found -> Representations.ok(Representations.eTag(found.version())).body(found.author()));
+    }
+
+    @Operation(summary = "Get all authors", description = "fetches all author entities")
+    @GetMapping
+    public Flux<AuthorDTO> getAll() {
+        return authorService.findAll();
+    }
+
+    @Operation(summary = "Get all books for author", description = "streams all books for an author with a certain id, as newline delimited JSON on request")
+    @GetMapping(value = "/{id}/books", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public Flux<BookDTO> getBooksForAuthorWithId(@PathVariable("id") Long id) {
+        return bookService.findAllBooksForAuthorWithId(id);
+    }
+
+    @Operation(summary = "Create author", description = "Creates an author")
+    @PostMapping
+    public Mono<ResponseEntity<AuthorDTO>> createAuthor(@RequestBody AuthorDTO authorDTO) {
+        if (authorDTO.getId() != null) {
+            return Mono.error(new BadRequestException("Inserting ID with POST request is not allowed!"));
+        }
+        return authorService.save(authorDTO)
+                .map(author -> ResponseEntity.created(URI.create("/api/authors" + author.getId())).body(author));
+    }
+
+    @Operation(summary = "Update author", description = "Updates the names of an author, pass its ETag as If-Match to only update the version you have seen")
+    @PutMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<AuthorDTO>> updateAuthor(@RequestBody AuthorDTO authorDTO, @PathVariable("id") Long id,
+                                                        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (authorDTO.getId() != null && !authorDTO.getId().equals(id)) {
+            return Mono.error(new BadRequestException("Changing the ID with PUT request is not allowed!"));
+        }
+        return authorService.update(id, authorDTO, AuthorController.version(ifMatch))
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Author with id: '" + id + "' not found!")))
+                .map(updated -> Representations.ok(Representations.eTag(updated.version())).body(updated.author()));
+    }
+
+    @Operation(summary = "Create book for author", description = "Creates a book and adds it to an author, pass the ETag of the author as If-Match to only add to the version you have seen")
+    @PostMapping("/{id}/books")
+    public Mono<ResponseEntity<BookDTO>> createBookForAuthorWithId(@RequestBody BookDTO bookDTO, @PathVariable("id") Long id,
+                                                                   @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return bookService.saveBookForAuthorWithId(bookDTO, id, AuthorController.version(ifMatch))
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Author with id: '" + id + "' not found!")))
+                .map(book -> ResponseEntity.created(URI.create("/api/authors" + book.getId())).body(book));
+    }
+}
@@ -0,0 +1,76 @@
+package dev.smo.spring.postgres.jpa.onetomany.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks the current request as one that has to read from the primary, because the client wrote recently and the
+ * replica may not have the write yet.
+ */
+public final class ReadYourWrites {
+
+    static final String COOKIE = "primary-until";
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    static void requirePrimary() {
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+    }
+
+    static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+
+    static void clear() {
+        PRIMARY_REQUIRED.remove();
+    }
+
+    /**
+     * Runs a read on the primary. Meant for loads that fill a cache shared by all clients: a result read from a
+     * lagging replica would be served from the cache also to clients that have to see their own writes.
+     */
+    public static <T> T onPrimary(Supplier<T> read) {
+        var previous = isPrimaryRequired();
+        requirePrimary();
+        try {
+            return read.get();
+        } finally {
+            if (!previous) {
+                clear();
+            }
+        }
+    }
+
+    /**
+     * Runs a read on the primary that produces no result, like rows written straight to a response.
+     */
+    public static void onPrimary(Runnable read) {
+        onPrimary(() -> {
+            read.run();
+            return null;
+        });
+    }
+
+    /**
+     * Lets a task that runs on another thread on behalf of the current request, like an async cache load,
+     * read from the primary if the request has to.
+     */
+    public static Runnable wrap(Runnable task) {
+        if (!isPrimaryRequired()) {
+            return task;
+        }
+        return () -> {
+            var previous = isPrimaryRequired();
+            requirePrimary();
+            try {
+                task.run();
+            } finally {
+                if (!previous) {
+                    clear();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package dev.smo.spring.postgres.jpa.onetomany.datasource;
+
+import jakarta.servlet.http.Cookie;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * After a committed write the rest of the request reads from the primary, and the client gets a
+ * {@link ReadYourWrites#COOKIE} so its next requests do the same until the replica has caught up.
+ */
+public class ReadYourWritesListener implements TransactionExecutionListener {
+
+    private final Clock clock;
+    private final Duration readYourWrites;
+
+    public ReadYourWritesListener(Clock clock, Duration readYourWrites) {
+        this.clock = clock;
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure != null || transaction.isReadOnly() || !transaction.isNewTransaction()) {
+            return;
+        }
+        ReadYourWrites.requirePrimary();
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && attributes.getResponse() != null && !attributes.getResponse().isCommitted()) {
+            var cookie = new Cookie(ReadYourWrites.COOKIE, String.valueOf(clock.millis() + readYourWrites.toMillis()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, readYourWrites.toSeconds()));
+            attributes.getResponse().addCookie(cookie);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package dev.smo.spring.postgres.jpa.onetomany.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+
+/**
+ * Sends read-only transactions to a replica and everything else to the primary, each with its own Hikari pool.
+ * <p>
+ * The {@link LazyConnectionDataSourceProxy} only takes a connection when the first statement runs, by then the
+ * transaction manager has marked the connection read-only for {@code @Transactional(readOnly = true)}.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableScheduling
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties, ObjectProvider<JdbcConnectionDetails> connectionDetails) {
+        var builder = properties.initializeDataSourceBuilder().type(HikariDataSource.class);
+        // a service connection, e.g. from Testcontainers, overrides spring.datasource.*
+        connectionDetails.ifAvailable(details -> builder.url(details.getJdbcUrl())
+                .username(details.getUsername())
+                .password(details.getPassword())
+                .driverClassName(details.getDriverClassName()));
+        return builder.build();
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    HikariDataSource replicaDataSource(ReplicaDataSourceProperties properties) {
+        return DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(properties.getUrl())
+                .username(properties.getUsername())
+                .password(properties.getPassword())
+                .build();
+    }
+
+    @Bean
+    ReplicaHealthCheck replicaHealthCheck(HikariDataSource replicaDataSource, ReplicaDataSourceProperties properties) {
+        return new ReplicaHealthCheck(replicaDataSource, properties.getMaxLag());
+    }
+
+    @Bean
+    SchedulingConfigurer replicaHealthCheckScheduling(ReplicaHealthCheck replicaHealthCheck, ReplicaDataSourceProperties properties) {
+        return registrar -> registrar.addFixedDelayTask(replicaHealthCheck::check, properties.getHealthCheckInterval());
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource, ReplicaHealthCheck replicaHealthCheck) {
+        var dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, replicaHealthCheck));
+        return dataSource;
+    }
+
+    @Bean
+    FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter() {
+        return new FilterRegistrationBean<>(new ReadYourWritesFilter(Clock.systemUTC()));
+    }
+
+    @Bean
+    ReadYourWritesListener readYourWritesListener(ReplicaDataSourceProperties properties) {
+        return new ReadYourWritesListener(Clock.systemUTC(), properties.getReadYourWrites());
+    }
+}
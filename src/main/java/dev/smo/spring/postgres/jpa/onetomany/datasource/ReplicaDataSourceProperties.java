@@ -0,0 +1,37 @@
+package dev.smo.spring.postgres.jpa.onetomany.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Connection of the read replica, its pool is tuned with {@code app.datasource.replica.hikari.*} like the primary
+ * pool with {@code spring.datasource.hikari.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.datasource.replica")
+public class ReplicaDataSourceProperties {
+
+    private boolean enabled;
+
+    private String url;
+    private String username;
+    private String password;
+
+    /**
+     * Time between two health checks of the replica, reads fall back to the primary while it is unhealthy.
+     */
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    /**
+     * Replication lag above which the replica counts as unhealthy.
+     */
+    private Duration maxLag = Duration.ofSeconds(10);
+
+    /**
+     * Time after a write in which reads of the same client go to the primary, so it sees its own writes.
+     */
+    private Duration readYourWrites = Duration.ofSeconds(5);
+
+}
@@ -0,0 +1,71 @@
+package dev.smo.spring.postgres.jpa.onetomany.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Checks that the replica answers, streams from the primary and does not lag behind it by more than the allowed lag.
+ */
+@Slf4j
+public class ReplicaHealthCheck {
+
+    // the replay timestamp of an idle replica is old although it has replayed everything, so only
+    // measure the lag while received WAL is still waiting to be replayed. A replica that lost the connection to the
+    // primary has replayed everything it received and would report no lag, so it also has to be streaming. The
+    // status of the WAL receiver is only visible with pg_read_all_stats, without it a running receiver counts.
+    private static final String LAG_QUERY = """
+            select case when pg_is_in_recovery() and pg_last_wal_receive_lsn() <> pg_last_wal_replay_lsn()
+                        then extract(epoch from now() - pg_last_xact_replay_timestamp())
+                        else 0 end,
+                   not pg_is_in_recovery()
+                       or exists (select 1 from pg_stat_wal_receiver where coalesce(status, 'streaming') = 'streaming')""";
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource replica;
+    private final Duration maxLag;
+    private volatile boolean healthy = true;
+
+    public ReplicaHealthCheck(DataSource replica, Duration maxLag) {
+        this.replica = replica;
+        this.maxLag = maxLag;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public void check() {
+        var wasHealthy = healthy;
+        try (var connection = replica.getConnection()) {
+            if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                healthy = false;
+            } else {
+                try (var statement = connection.createStatement(); var result = statement.executeQuery(LAG_QUERY)) {
+                    var row = result.next();
+                    var lagSeconds = row ? result.getDouble(1) : 0;
+                    var streaming = row && result.getBoolean(2);
+                    healthy = streaming && lagSeconds <= maxLag.toMillis() / 1000.0;
+                    if (!healthy && wasHealthy) {
+                        if (streaming) {
+                            log.warn("Replica lags {}s behind the primary, reading from the primary", lagSeconds);
+                        } else {
+                            log.warn("Replica does not stream from the primary, reading from the primary");
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            healthy = false;
+            if (wasHealthy) {
+                log.warn("Replica is unavailable, reading from the primary", e);
+            }
+        }
+        if (healthy && !wasHealthy) {
+            log.info("Replica is healthy again, reading from the replica");
+        }
+    }
+}
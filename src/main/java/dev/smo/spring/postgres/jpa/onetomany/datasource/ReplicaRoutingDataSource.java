@@ -0,0 +1,29 @@
+package dev.smo.spring.postgres.jpa.onetomany.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * The data source of read-only transactions, the replica unless it is unhealthy or the request has to see its
+ * own writes.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target { PRIMARY, REPLICA }
+
+    private final ReplicaHealthCheck healthCheck;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaHealthCheck healthCheck) {
+        this.healthCheck = healthCheck;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ReadYourWrites.isPrimaryRequired() || !healthCheck.isHealthy() ? Target.PRIMARY : Target.REPLICA;
+    }
+}
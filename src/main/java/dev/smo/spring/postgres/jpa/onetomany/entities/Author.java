@@ -4,26 +4,47 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OptimisticLock;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Data
 @Builder
+@EqualsAndHashCode(exclude = {"books"})
+@ToString(exclude = {"books"})
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "author")
 public class Author {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "author_seq")
+    @SequenceGenerator(name = "author_seq", sequenceName = "author_seq", allocationSize = 50)
     private Long id;
 
     private String firstName;
     private String lastName;
 
+    /**
+     * Covers the author and its books, adding a book increments it explicitly, see {@code BookServiceImpl#saveBookForAuthorWithId}.
+     */
+    @Version
+    private Long version;
+
     @OneToMany(mappedBy = "author", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "author.books")
+    // navigating the books of many loaded authors initializes up to 50 collections with one query instead of one each
+    @BatchSize(size = 50)
+    @OptimisticLock(excluded = true)
     @Builder.Default
     private List<Book> books = new ArrayList<>();
 
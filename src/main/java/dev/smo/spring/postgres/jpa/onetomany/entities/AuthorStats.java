@@ -0,0 +1,45 @@
+package dev.smo.spring.postgres.jpa.onetomany.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Summary of the books of an author, only written by the statements of {@code AuthorStatsRepository}.
+ * The sum and count of the prices are kept instead of the average, so adding a book is a single update.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Immutable
+@Table(name = "author_stats")
+public class AuthorStats {
+
+    @Id
+    private Long authorId;
+
+    private Long bookCount;
+
+    private Long priceCount;
+
+    private BigDecimal priceSum;
+
+    private BigDecimal minPrice;
+
+    private BigDecimal maxPrice;
+
+    private LocalDate firstPublishDate;
+
+    private LocalDate lastPublishDate;
+
+}
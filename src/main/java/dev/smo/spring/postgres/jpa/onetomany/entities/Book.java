@@ -3,21 +3,26 @@ package dev.smo.spring.postgres.jpa.onetomany.entities;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Data
 @Builder
-@EqualsAndHashCode(exclude = {"title", "price", "publishDate", "author"})
+@EqualsAndHashCode(exclude = {"title", "price", "publishDate", "version", "author"})
 @ToString(exclude = {"author"})
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "book")
 public class Book {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private Long id;
 
     private String title;
@@ -26,6 +31,9 @@ public class Book {
 
     private LocalDate publishDate;
 
+    @Version
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JoinColumn(name = "author_id")
     @JsonBackReference
@@ -0,0 +1,32 @@
+package dev.smo.spring.postgres.jpa.onetomany.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+/**
+ * Rejects a request the application cannot take right now, the {@code Retry-After} header tells the client when
+ * to try again. A {@link ResponseStatusException} instead of {@code @ResponseStatus}, as only it can add headers.
+ */
+public class ServiceUnavailableException extends ResponseStatusException {
+
+    private final Duration retryAfter;
+
+    public ServiceUnavailableException(String message, Duration retryAfter) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        var headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, retryAfter.toSeconds())));
+        return headers;
+    }
+}
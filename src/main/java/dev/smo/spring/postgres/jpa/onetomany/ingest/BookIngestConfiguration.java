@@ -0,0 +1,55 @@
+package dev.smo.spring.postgres.jpa.onetomany.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+
+/**
+ * Write-behind mode for books, the books are journaled on the local disk and written to the database in batches by
+ * a background task, see {@link BookIngestServiceImpl}.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@EnableScheduling
+@EnableConfigurationProperties(BookIngestProperties.class)
+@ConditionalOnProperty(prefix = "app.ingest", name = "enabled", havingValue = "true")
+public class BookIngestConfiguration {
+
+    @Bean(destroyMethod = "close")
+    BookJournal bookJournal(BookIngestProperties properties) {
+        return new BookJournal(Path.of(properties.getDirectory()), Math.toIntExact(properties.getSegmentSize().toBytes()));
+    }
+
+    @Bean
+    BookIngestStore bookIngestStore(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                    @Value("${app.stats.summary-table.enabled:false}") boolean statsSummaryTable) {
+        return new BookIngestStore(jdbcTemplate, transactionTemplate, statsSummaryTable);
+    }
+
+    @Bean
+    BookIngestServiceImpl bookIngestService(BookJournal bookJournal, BookIngestStore bookIngestStore, ObjectMapper objectMapper,
+                                            CacheManager cacheManager, EntityManagerFactory entityManagerFactory,
+                                            BookIngestProperties properties, MeterRegistry meterRegistry) {
+        return new BookIngestServiceImpl(bookJournal, bookIngestStore, objectMapper, cacheManager,
+                entityManagerFactory.unwrap(SessionFactory.class).getCache(), properties, meterRegistry);
+    }
+
+    @Bean
+    SchedulingConfigurer bookIngestScheduling(BookIngestServiceImpl bookIngestService, BookIngestProperties properties) {
+        return registrar -> registrar.addFixedDelayTask(bookIngestService::drain, properties.getDrainInterval());
+    }
+}
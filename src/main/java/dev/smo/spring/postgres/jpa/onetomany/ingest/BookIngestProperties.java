@@ -0,0 +1,45 @@
+package dev.smo.spring.postgres.jpa.onetomany.ingest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.ingest")
+public class BookIngestProperties {
+
+    private boolean enabled;
+
+    /**
+     * Directory of the journal segments and its checkpoint, must be on a local disk.
+     */
+    private String directory = "data/book-journal";
+
+    /**
+     * Size of a memory-mapped journal segment, a new one is started when it is full.
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Submitted but not yet written books above which new submissions are rejected with 503.
+     */
+    private int maxPending = 100_000;
+
+    /**
+     * Books written to the database per transaction.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Time between two drains of the journal, a drain writes batches until the journal is empty.
+     */
+    private Duration drainInterval = Duration.ofMillis(200);
+
+    /**
+     * Retry-After of rejected submissions.
+     */
+    private Duration retryAfter = Duration.ofSeconds(5);
+
+}
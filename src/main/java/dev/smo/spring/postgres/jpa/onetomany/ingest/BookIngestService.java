@@ -0,0 +1,25 @@
+package dev.smo.spring.postgres.jpa.onetomany.ingest;
+
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.IngestStatusDTO;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface BookIngestService {
+
+    /**
+     * Journals a book for an author, it is written to the database in the background. The author and its version
+     * are only checked then, a book of an unknown or modified author is rejected.
+     *
+     * @param expectedVersion the version of the author the client has seen, {@code null} for no check
+     * @return the pending status with the tracking id of the book
+     * @throws dev.smo.spring.postgres.jpa.onetomany.exception.ServiceUnavailableException if too many books are pending
+     */
+    IngestStatusDTO submit(BookDTO book, Long authorId, Long expectedVersion);
+
+    /**
+     * @return empty if the tracking id is unknown
+     */
+    Optional<IngestStatusDTO> findStatus(UUID trackingId);
+}
@@ -0,0 +1,175 @@
+package dev.smo.spring.postgres.jpa.onetomany.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.smo.spring.postgres.jpa.onetomany.config.CacheConfiguration;
+import dev.smo.spring.postgres.jpa.onetomany.entities.Author;
+import dev.smo.spring.postgres.jpa.onetomany.exception.ServiceUnavailableException;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.IngestStatusDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Acknowledges a book as soon as it is forced to the journal and writes the journal to the database in batches.
+ * <p>
+ * The journal is only committed after a batch was written, a crash in between writes the batch again after the
+ * restart, which skips the tracking ids already recorded in {@code book_ingest}.
+ */
+@Slf4j
+class BookIngestServiceImpl implements BookIngestService {
+
+    private final BookJournal journal;
+    private final BookIngestStore store;
+    private final ObjectMapper objectMapper;
+    private final CacheManager cacheManager;
+    private final Cache secondLevelCache;
+    private final BookIngestProperties properties;
+    // tracking id to author id of every journaled but not yet written book
+    private final Map<UUID, Long> pending = new ConcurrentHashMap<>();
+
+    BookIngestServiceImpl(BookJournal journal, BookIngestStore store, ObjectMapper objectMapper, CacheManager cacheManager,
+                          Cache secondLevelCache, BookIngestProperties properties, MeterRegistry meterRegistry) {
+        this.journal = journal;
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.cacheManager = cacheManager;
+        this.secondLevelCache = secondLevelCache;
+        this.properties = properties;
+        for (var entry : journal.read(journal.checkpoint(), Integer.MAX_VALUE)) {
+            var journalEntry = decode(entry);
+            pending.put(journalEntry.trackingId(), journalEntry.authorId());
+        }
+        Gauge.builder("app.ingest.pending", pending, Map::size)
+                .description("Journaled books not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public IngestStatusDTO submit(BookDTO book, Long authorId, Long expectedVersion) {
+        if (pending.size() >= properties.getMaxPending()) {
+            throw new ServiceUnavailableException("Too many books waiting to be written!", properties.getRetryAfter());
+        }
+        var trackingId = UUID.randomUUID();
+        var payload = encode(new JournalEntry(trackingId, authorId, expectedVersion, book));
+        // before the append, a drain may write the entry before append returns
+        pending.put(trackingId, authorId);
+        try {
+            journal.append(payload);
+        } catch (RuntimeException e) {
+            pending.remove(trackingId);
+            throw e;
+        }
+        return IngestStatusDTO.builder()
+                .trackingId(trackingId)
+                .status(IngestStatusDTO.Status.PENDING)
+                .authorId(authorId)
+                .build();
+    }
+
+    @Override
+    public Optional<IngestStatusDTO> findStatus(UUID trackingId) {
+        var authorId = pending.get(trackingId);
+        if (authorId != null) {
+            return Optional.of(IngestStatusDTO.builder()
+                    .trackingId(trackingId)
+                    .status(IngestStatusDTO.Status.PENDING)
+                    .authorId(authorId)
+                    .build());
+        }
+        return store.findStatus(trackingId);
+    }
+
+    /**
+     * Writes batches until the journal is empty, a batch that cannot be written is tried again with the next drain.
+     */
+    void drain() {
+        List<BookJournal.Entry> entries;
+        while (!(entries = journal.read(journal.checkpoint(), properties.getBatchSize())).isEmpty()) {
+            var batch = entries.stream().map(this::decode).toList();
+            List<IngestStatusDTO> statuses;
+            try {
+                statuses = write(batch);
+            } catch (RuntimeException e) {
+                log.warn("Cannot write {} journaled books, retrying with the next drain", batch.size(), e);
+                return;
+            }
+            journal.commit(entries.getLast().next());
+            evict(statuses);
+            batch.forEach(entry -> pending.remove(entry.trackingId()));
+        }
+    }
+
+    private List<IngestStatusDTO> write(List<JournalEntry> batch) {
+        try {
+            return store.write(batch);
+        } catch (DataIntegrityViolationException e) {
+            // a book the database does not take rolls back the whole batch, find it by writing them one by one
+            var statuses = new ArrayList<IngestStatusDTO>(batch.size());
+            for (var entry : batch) {
+                try {
+                    statuses.addAll(store.write(List.of(entry)));
+                } catch (DataIntegrityViolationException invalid) {
+                    statuses.add(store.reject(entry, invalid.getMostSpecificCause().getMessage()));
+                }
+            }
+            return statuses;
+        }
+    }
+
+    /**
+     * The books were written past Hibernate and the caching advice, so evict what they changed.
+     */
+    private void evict(List<IngestStatusDTO> statuses) {
+        var authors = cacheManager.getCache(CacheConfiguration.AUTHORS_CACHE);
+        var authorBooks = cacheManager.getCache(CacheConfiguration.AUTHOR_BOOKS_CACHE);
+        var authorIds = statuses.stream()
+                .filter(status -> status.getStatus() == IngestStatusDTO.Status.APPLIED)
+                .map(IngestStatusDTO::getAuthorId)
+                .distinct()
+                .toList();
+        for (var authorId : authorIds) {
+            // the cached author carries the version, which changed with its books
+            if (authors != null) {
+                authors.evict(authorId);
+            }
+            if (authorBooks != null) {
+                authorBooks.evict(authorId);
+            }
+            // the version of the author changed, cached queries may contain its books
+            secondLevelCache.evictEntityData(Author.class, authorId);
+            secondLevelCache.evictCollectionData(Author.class.getName() + ".books", authorId);
+        }
+        if (!authorIds.isEmpty()) {
+            secondLevelCache.evictDefaultQueryRegion();
+        }
+    }
+
+    private byte[] encode(JournalEntry entry) {
+        try {
+            return objectMapper.writeValueAsBytes(entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write journal entry", e);
+        }
+    }
+
+    private JournalEntry decode(BookJournal.Entry entry) {
+        try {
+            return objectMapper.readValue(entry.payload(), JournalEntry.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read journal entry", e);
+        }
+    }
+}
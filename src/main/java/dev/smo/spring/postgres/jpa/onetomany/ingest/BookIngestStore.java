@@ -0,0 +1,171 @@
+package dev.smo.spring.postgres.jpa.onetomany.ingest;
+
+import dev.smo.spring.postgres.jpa.onetomany.model.IngestStatusDTO;
+import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorStatsRepository;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Writes journaled books with plain JDBC batches and records the outcome of every tracking id in {@code book_ingest}
+ * in the same transaction. A batch that is written again after a restart skips the tracking ids already recorded.
+ */
+class BookIngestStore {
+
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private static final String INCREMENT_VERSION =
+            "update author set version = version + 1 where id = ? and version = coalesce(?, version)";
+    private static final String INSERT_BOOK =
+            "insert into book (id, title, price, publish_date, version, author_id) values (?, ?, ?, ?, 0, ?)";
+    private static final String INSERT_STATUS =
+            "insert into book_ingest (tracking_id, author_id, book_id, status, error, applied_at) values (?, ?, ?, ?, ?, now())";
+
+    private static final RowMapper<IngestStatusDTO> STATUS_MAPPER = (rs, rowNum) -> IngestStatusDTO.builder()
+            .trackingId(rs.getObject("tracking_id", UUID.class))
+            .status(IngestStatusDTO.Status.valueOf(rs.getString("status")))
+            .authorId(rs.getLong("author_id"))
+            .bookId(rs.getObject("book_id", Long.class))
+            .error(rs.getString("error"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean statsSummaryTable;
+
+    BookIngestStore(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, boolean statsSummaryTable) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = transactionTemplate;
+        this.statsSummaryTable = statsSummaryTable;
+    }
+
+    /**
+     * Writes the books in one transaction, books of unknown or modified authors are rejected.
+     *
+     * @return the status of every entry not written before
+     */
+    List<IngestStatusDTO> write(List<JournalEntry> entries) {
+        return transactionTemplate.execute(transaction -> {
+            var recorded = recordedTrackingIds(entries);
+            var open = entries.stream().filter(entry -> !recorded.contains(entry.trackingId())).toList();
+            if (open.isEmpty()) {
+                return List.of();
+            }
+            // one increment per book in journal order, a second book with the same expected version is rejected
+            // like the second of two requests, the increment doubles as existence check like in BookServiceImpl
+            var updated = jdbcTemplate.batchUpdate(INCREMENT_VERSION, open, open.size(), (ps, entry) -> {
+                ps.setLong(1, entry.authorId());
+                ps.setObject(2, entry.expectedVersion(), Types.BIGINT);
+            })[0];
+            var accepted = new ArrayList<JournalEntry>();
+            var statuses = new ArrayList<IngestStatusDTO>(open.size());
+            for (int i = 0; i < open.size(); i++) {
+                if (updated[i] > 0) {
+                    accepted.add(open.get(i));
+                } else {
+                    statuses.add(rejected(open.get(i), "Author with id: '" + open.get(i).authorId() + "' not found or modified!"));
+                }
+            }
+            if (!accepted.isEmpty()) {
+                statuses.addAll(insertBooks(accepted));
+            }
+            insertStatuses(statuses);
+            return statuses;
+        });
+    }
+
+    /**
+     * Records a book that cannot be written at all, e.g. with a too long title.
+     */
+    IngestStatusDTO reject(JournalEntry entry, String error) {
+        var status = rejected(entry, error);
+        transactionTemplate.executeWithoutResult(transaction -> insertStatuses(List.of(status)));
+        return status;
+    }
+
+    Optional<IngestStatusDTO> findStatus(UUID trackingId) {
+        return jdbcTemplate.query("select tracking_id, author_id, book_id, status, error from book_ingest where tracking_id = ?",
+                STATUS_MAPPER, trackingId).stream().findFirst();
+    }
+
+    private List<IngestStatusDTO> insertBooks(List<JournalEntry> entries) {
+        // every nextval reserves a block for the pooled JPA generator, taking its last id never collides with it
+        var ids = jdbcTemplate.queryForList("select nextval('book_seq') from generate_series(1, ?)", Long.class, entries.size());
+        jdbcTemplate.batchUpdate(INSERT_BOOK, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                var book = entries.get(i).book();
+                ps.setLong(1, ids.get(i));
+                ps.setString(2, book.getTitle());
+                ps.setBigDecimal(3, book.getPrice());
+                ps.setObject(4, book.getPublishDate(), Types.DATE);
+                ps.setLong(5, entries.get(i).authorId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return entries.size();
+            }
+        });
+        if (statsSummaryTable) {
+            namedParameterJdbcTemplate.batchUpdate(AuthorStatsRepository.ADD_BOOK, ids.stream()
+                    .map(id -> new MapSqlParameterSource("bookId", id))
+                    .toArray(SqlParameterSource[]::new));
+        }
+        var statuses = new ArrayList<IngestStatusDTO>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            statuses.add(IngestStatusDTO.builder()
+                    .trackingId(entries.get(i).trackingId())
+                    .status(IngestStatusDTO.Status.APPLIED)
+                    .authorId(entries.get(i).authorId())
+                    .bookId(ids.get(i))
+                    .build());
+        }
+        return statuses;
+    }
+
+    private void insertStatuses(List<IngestStatusDTO> statuses) {
+        jdbcTemplate.batchUpdate(INSERT_STATUS, statuses, statuses.size(), (ps, status) -> {
+            ps.setObject(1, status.getTrackingId());
+            ps.setLong(2, status.getAuthorId());
+            ps.setObject(3, status.getBookId(), Types.BIGINT);
+            ps.setString(4, status.getStatus().name());
+            ps.setString(5, status.getError());
+        });
+    }
+
+    private Set<UUID> recordedTrackingIds(List<JournalEntry> entries) {
+        var trackingIds = entries.stream().map(JournalEntry::trackingId).toArray(UUID[]::new);
+        return new HashSet<>(jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement("select tracking_id from book_ingest where tracking_id = any(?)");
+            statement.setArray(1, connection.createArrayOf("uuid", trackingIds));
+            return statement;
+        }, (rs, rowNum) -> rs.getObject(1, UUID.class)));
+    }
+
+    private static IngestStatusDTO rejected(JournalEntry entry, String error) {
+        return IngestStatusDTO.builder()
+                .trackingId(entry.trackingId())
+                .status(IngestStatusDTO.Status.REJECTED)
+                .authorId(entry.authorId())
+                .error(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error)
+                .build();
+    }
+}
@@ -0,0 +1,262 @@
+package dev.smo.spring.postgres.jpa.onetomany.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal in memory-mapped segment files of a fixed size.
+ * <p>
+ * Every entry is its payload length, the CRC32C of the payload and the payload. A zero length marks the end of the
+ * written part of a segment, new segments are zero filled. An entry is forced to disk before {@link #append} returns,
+ * appenders that wait for the force of another one are covered by it, so concurrent appends share a single force.
+ * The checkpoint file holds the position up to which the entries were applied, {@link #commit} moves it and deletes
+ * the segments before it. After a restart the entries after the checkpoint are read again, a torn entry at the end,
+ * which was never acknowledged, is overwritten.
+ */
+final class BookJournal implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final int HEADER = 8;
+
+    record Position(long segment, int offset) implements Comparable<Position> {
+
+        @Override
+        public int compareTo(Position other) {
+            return segment != other.segment ? Long.compare(segment, other.segment) : Integer.compare(offset, other.offset);
+        }
+    }
+
+    /**
+     * An entry and the position after it.
+     */
+    record Entry(byte[] payload, Position next) {
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ConcurrentSkipListMap<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+    private final Object forceLock = new Object();
+
+    private volatile Position checkpoint;
+    // guarded by this
+    private Position written;
+    // entries up to this position are on disk and may be read
+    private volatile Position forced;
+
+    BookJournal(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+            try (var files = Files.list(directory)) {
+                for (var file : files.filter(f -> f.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+                    var name = file.getFileName().toString();
+                    segments.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), map(file));
+                }
+            }
+            checkpoint = readCheckpoint();
+            // left over if the application stopped between moving the checkpoint and deleting them
+            deleteSegmentsBefore(checkpoint.segment());
+            segments.computeIfAbsent(checkpoint.segment(), segment -> map(segmentPath(segment)));
+            written = recover();
+            forced = written;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open journal in " + directory, e);
+        }
+    }
+
+    Position checkpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Appends an entry and forces it to disk.
+     */
+    Position append(byte[] payload) {
+        var position = write(payload);
+        force(position);
+        return position;
+    }
+
+    /**
+     * Reads up to {@code max} entries after the given position, only entries that are already forced to disk.
+     */
+    List<Entry> read(Position from, int max) {
+        var end = forced;
+        var entries = new ArrayList<Entry>();
+        long segment = from.segment();
+        int offset = from.offset();
+        while (entries.size() < max && new Position(segment, offset).compareTo(end) < 0) {
+            var buffer = segments.get(segment);
+            int length = offset + HEADER <= segmentSize ? buffer.getInt(offset) : 0;
+            if (length == 0) {
+                // the rest of the segment was too small for the next entry
+                segment++;
+                offset = 0;
+                continue;
+            }
+            var payload = new byte[length];
+            buffer.get(offset + HEADER, payload);
+            offset += HEADER + length;
+            entries.add(new Entry(payload, new Position(segment, offset)));
+        }
+        return entries;
+    }
+
+    /**
+     * Marks the entries before the position as applied, they are not read again after a restart.
+     */
+    void commit(Position position) {
+        try {
+            var temp = directory.resolve(CHECKPOINT + ".tmp");
+            try (var channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(ByteBuffer.allocate(12).putLong(position.segment()).putInt(position.offset()).flip());
+                channel.force(true);
+            }
+            Files.move(temp, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE);
+            checkpoint = position;
+            deleteSegmentsBefore(position.segment());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write checkpoint of journal in " + directory, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            segments.values().forEach(MappedByteBuffer::force);
+        }
+    }
+
+    private synchronized Position write(byte[] payload) {
+        int size = HEADER + payload.length;
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("Entry of " + size + " bytes does not fit into a journal segment");
+        }
+        if (written.offset() + size > segmentSize) {
+            // the zero length after the last entry tells readers to continue with the next segment
+            segments.get(written.segment()).force();
+            long next = written.segment() + 1;
+            segments.put(next, map(segmentPath(next)));
+            written = new Position(next, 0);
+        }
+        var buffer = segments.get(written.segment());
+        int offset = written.offset();
+        buffer.putInt(offset + 4, crc(payload, 0, payload.length));
+        buffer.put(offset + HEADER, payload);
+        buffer.putInt(offset, payload.length);
+        written = new Position(written.segment(), offset + size);
+        return written;
+    }
+
+    private void force(Position position) {
+        if (forced.compareTo(position) >= 0) {
+            return;
+        }
+        synchronized (forceLock) {
+            var from = forced;
+            if (from.compareTo(position) >= 0) {
+                return;
+            }
+            Position to;
+            synchronized (this) {
+                to = written;
+            }
+            // earlier segments were forced completely when the writer moved on
+            int start = from.segment() == to.segment() ? from.offset() : 0;
+            segments.get(to.segment()).force(start, to.offset() - start);
+            forced = to;
+        }
+    }
+
+    /**
+     * Finds the end of the valid entries after the checkpoint and clears anything behind it.
+     */
+    private Position recover() {
+        long segment = checkpoint.segment();
+        int offset = checkpoint.offset();
+        while (true) {
+            var buffer = segments.get(segment);
+            int length = offset + HEADER <= segmentSize ? buffer.getInt(offset) : 0;
+            boolean valid = length > 0 && offset + HEADER + length <= segmentSize
+                    && buffer.getInt(offset + 4) == crc(buffer, offset + HEADER, length);
+            if (valid) {
+                offset += HEADER + length;
+            } else if (length == 0 && segments.containsKey(segment + 1)) {
+                segment++;
+                offset = 0;
+            } else if (segments.lastKey() == segment) {
+                // a torn entry of an append that never returned
+                clear(buffer, offset);
+                return new Position(segment, offset);
+            } else {
+                throw new IllegalStateException("Corrupt journal segment " + segmentPath(segment) + " at " + offset);
+            }
+        }
+    }
+
+    private void deleteSegmentsBefore(long segment) throws IOException {
+        for (var applied : List.copyOf(segments.headMap(segment).keySet())) {
+            segments.remove(applied);
+            Files.deleteIfExists(segmentPath(applied));
+        }
+    }
+
+    private Position readCheckpoint() throws IOException {
+        var file = directory.resolve(CHECKPOINT);
+        if (!Files.exists(file)) {
+            return new Position(segments.isEmpty() ? 1 : segments.firstKey(), 0);
+        }
+        var buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        return new Position(buffer.getLong(), buffer.getInt());
+    }
+
+    private MappedByteBuffer map(Path file) {
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // mapping beyond the end grows the file, the new part is zero filled
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map journal segment " + file, e);
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve("%020d%s".formatted(segment, SEGMENT_SUFFIX));
+    }
+
+    private void clear(MappedByteBuffer buffer, int from) {
+        // only writes the non-zero bytes, so the untouched pages of the segment are read but not written back
+        for (int i = from; i < segmentSize; i++) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+        buffer.force();
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        var crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        var crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,11 @@
+package dev.smo.spring.postgres.jpa.onetomany.ingest;
+
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+
+import java.util.UUID;
+
+/**
+ * A submitted book as it is stored in the journal.
+ */
+record JournalEntry(UUID trackingId, Long authorId, Long expectedVersion, BookDTO book) {
+}
@@ -0,0 +1,17 @@
+package dev.smo.spring.postgres.jpa.onetomany.metrics;
+
+import org.hibernate.Interceptor;
+import org.hibernate.type.Type;
+
+/**
+ * Counts every entity Hibernate hydrates, from the database or the second-level cache,
+ * towards the {@link RequestStatistics} of the current request.
+ */
+public class EntityLoadCountingInterceptor implements Interceptor {
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        RequestStatistics.entityLoaded();
+        return false;
+    }
+}
@@ -0,0 +1,52 @@
+package dev.smo.spring.postgres.jpa.onetomany.metrics;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Instrumentation on top of what Spring Boot already measures ({@code http.server.requests},
+ * {@code spring.data.repository.invocations} and {@code hikaricp.connections.acquire}).
+ */
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfiguration {
+
+    /**
+     * Times every method of classes annotated with {@code @Timed}, switch it off for the lowest overhead on hot paths.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.metrics", name = "service-timing.enabled", havingValue = "true", matchIfMissing = true)
+    TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer requestStatisticsCustomizer() {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, new StatementCountingInspector());
+            hibernateProperties.put(AvailableSettings.INTERCEPTOR, new EntityLoadCountingInterceptor());
+        };
+    }
+
+    /**
+     * Counting is always on for the query budgets, {@code app.metrics.request-statistics.enabled} only switches off
+     * recording the counts as metrics.
+     */
+    @Bean
+    WebMvcConfigurer requestStatisticsConfigurer(MeterRegistry meterRegistry,
+                                                 @Value("${app.metrics.request-statistics.enabled:true}") boolean recordMetrics) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new RequestStatisticsInterceptor(meterRegistry, recordMetrics)).addPathPatterns("/api/**");
+            }
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package dev.smo.spring.postgres.jpa.onetomany.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits the SQL statements and hydrated entities of a request to a controller method,
+ * enforced by {@link QueryBudgetAdvice} before the response body is written.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    /**
+     * Maximum number of SQL statements the request may prepare, sequence fetches are not counted.
+     */
+    int max();
+
+    /**
+     * Maximum number of entities the request may hydrate, negative for no limit.
+     */
+    int maxEntities() default -1;
+
+}
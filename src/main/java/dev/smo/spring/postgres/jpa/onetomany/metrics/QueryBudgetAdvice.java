@@ -0,0 +1,65 @@
+package dev.smo.spring.postgres.jpa.onetomany.metrics;
+
+import dev.smo.spring.postgres.jpa.onetomany.exception.QueryBudgetExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Locale;
+
+/**
+ * Checks the {@link QueryBudget} of a controller method against the {@link RequestStatistics} of the request.
+ * Depending on {@code app.query-budget.mode} an exceeded budget is logged and counted as
+ * {@code app.request.query.budget.exceeded} ({@code log}), fails the request ({@code fail}) or is ignored ({@code off}).
+ */
+@Slf4j
+@ControllerAdvice
+public class QueryBudgetAdvice implements ResponseBodyAdvice<Object> {
+
+    enum Mode { OFF, LOG, FAIL }
+
+    private final Mode mode;
+    private final MeterRegistry meterRegistry;
+
+    public QueryBudgetAdvice(@Value("${app.query-budget.mode:log}") String mode, MeterRegistry meterRegistry) {
+        this.mode = Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return mode != Mode.OFF && returnType.hasMethodAnnotation(QueryBudget.class);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        var statistics = RequestStatistics.current();
+        var budget = returnType.getMethodAnnotation(QueryBudget.class);
+        if (statistics == null || budget == null) {
+            return body;
+        }
+        var statementsExceeded = statistics.getStatements() > budget.max();
+        var entitiesExceeded = budget.maxEntities() >= 0 && statistics.getEntitiesLoaded() > budget.maxEntities();
+        if (statementsExceeded || entitiesExceeded) {
+            var handler = returnType.getContainingClass().getSimpleName() + "." + returnType.getExecutable().getName();
+            var message = String.format("%s exceeded its query budget: %d statements (max %d), %d entities (max %s)",
+                    handler, statistics.getStatements(), budget.max(), statistics.getEntitiesLoaded(),
+                    budget.maxEntities() >= 0 ? budget.maxEntities() : "unlimited");
+            if (mode == Mode.FAIL) {
+                throw new QueryBudgetExceededException(message);
+            }
+            log.warn(message);
+            meterRegistry.counter("app.request.query.budget.exceeded", "handler", handler).increment();
+        }
+        return body;
+    }
+}
@@ -0,0 +1,81 @@
+package dev.smo.spring.postgres.jpa.onetomany.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the SQL statements and loaded entities of the current request on the request thread.
+ * Counting only happens between {@link #start()} and {@link #stop()}, outside of that the counters are no-ops.
+ */
+public final class RequestStatistics {
+
+    private static final ThreadLocal<RequestStatistics> CURRENT = new ThreadLocal<>();
+
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder entitiesLoaded = new LongAdder();
+
+    private RequestStatistics() {
+    }
+
+    public static RequestStatistics start() {
+        var statistics = new RequestStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * @return the statistics of the current request or {@code null} if none was started on this thread
+     */
+    public static RequestStatistics current() {
+        return CURRENT.get();
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Lets a task that runs on another thread on behalf of the current request, like an async cache load,
+     * count towards the statistics of this request.
+     */
+    public static Runnable wrap(Runnable task) {
+        var statistics = CURRENT.get();
+        if (statistics == null) {
+            return task;
+        }
+        return () -> {
+            var previous = CURRENT.get();
+            CURRENT.set(statistics);
+            try {
+                task.run();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+
+    static void statementPrepared() {
+        var statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statements.increment();
+        }
+    }
+
+    static void entityLoaded() {
+        var statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.entitiesLoaded.increment();
+        }
+    }
+
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    public long getEntitiesLoaded() {
+        return entitiesLoaded.sum();
+    }
+}
@@ -0,0 +1,67 @@
+package dev.smo.spring.postgres.jpa.onetomany.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Counts the SQL statements and loaded entities per request for {@link QueryBudget} checks and, if enabled, records
+ * them as distribution summaries tagged with the request mapping, so a N+1 regression shows up as a jump of
+ * {@code app.request.sql.statements}. Streamed responses are not recorded, their statements run on another thread.
+ */
+public class RequestStatisticsInterceptor implements AsyncHandlerInterceptor {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean recordMetrics;
+
+    public RequestStatisticsInterceptor(MeterRegistry meterRegistry, boolean recordMetrics) {
+        this.meterRegistry = meterRegistry;
+        this.recordMetrics = recordMetrics;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.REQUEST) {
+            RequestStatistics.start();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // afterCompletion only runs for the async dispatch on another thread, the request thread must not keep
+        // counting into these statistics when it serves the next request
+        RequestStatistics.stop();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        var statistics = RequestStatistics.current();
+        if (statistics == null) {
+            return;
+        }
+        RequestStatistics.stop();
+        if (!recordMetrics) {
+            return;
+        }
+        var pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        var uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        summary("app.request.sql.statements", "SQL statements prepared per request", request, uri)
+                .record(statistics.getStatements());
+        summary("app.request.entities.loaded", "Entities hydrated per request", request, uri)
+                .record(statistics.getEntitiesLoaded());
+    }
+
+    private DistributionSummary summary(String name, String description, HttpServletRequest request, String uri) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
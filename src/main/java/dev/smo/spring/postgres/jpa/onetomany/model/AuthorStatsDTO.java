@@ -0,0 +1,34 @@
+package dev.smo.spring.postgres.jpa.onetomany.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthorStatsDTO {
+
+    private Long authorId;
+
+    private Long bookCount;
+
+    private BigDecimal minPrice;
+
+    private BigDecimal maxPrice;
+
+    /**
+     * Average of the books with a price, rounded to cents.
+     */
+    private BigDecimal avgPrice;
+
+    private LocalDate firstPublishDate;
+
+    private LocalDate lastPublishDate;
+
+}
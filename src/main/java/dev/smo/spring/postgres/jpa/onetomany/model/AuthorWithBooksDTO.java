@@ -0,0 +1,28 @@
+package dev.smo.spring.postgres.jpa.onetomany.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthorWithBooksDTO {
+
+    private Long id;
+
+    private String firstName;
+    private String lastName;
+
+    // null when the books were not requested, they are left out of the JSON then
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Builder.Default
+    private List<BookDTO> books = new ArrayList<>();
+
+}
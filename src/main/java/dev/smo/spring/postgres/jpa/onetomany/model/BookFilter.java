@@ -0,0 +1,45 @@
+package dev.smo.spring.postgres.jpa.onetomany.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Optional ranges the books of a page must be in, bound from the query parameters, all bounds are inclusive. Books
+ * without a price or publish date are left out as soon as the range of that attribute is restricted.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookFilter {
+
+    @Schema(description = "lowest price, inclusive", example = "10.00")
+    private BigDecimal minPrice;
+
+    @Schema(description = "highest price, inclusive", example = "49.99")
+    private BigDecimal maxPrice;
+
+    @Schema(description = "earliest publish date, inclusive", example = "2020-01-01")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate publishedFrom;
+
+    @Schema(description = "latest publish date, inclusive", example = "2024-12-31")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate publishedTo;
+
+    public boolean restrictsPrice() {
+        return minPrice != null || maxPrice != null;
+    }
+
+    public boolean restrictsPublishDate() {
+        return publishedFrom != null || publishedTo != null;
+    }
+
+}
@@ -0,0 +1,23 @@
+package dev.smo.spring.postgres.jpa.onetomany.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> content;
+
+    /**
+     * Opaque cursor to pass as {@code after} to fetch the next page, {@code null} on the last page.
+     */
+    private String nextCursor;
+
+}
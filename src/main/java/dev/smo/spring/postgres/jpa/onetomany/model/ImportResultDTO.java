@@ -0,0 +1,18 @@
+package dev.smo.spring.postgres.jpa.onetomany.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResultDTO {
+
+    private long authors;
+
+    private long books;
+
+}
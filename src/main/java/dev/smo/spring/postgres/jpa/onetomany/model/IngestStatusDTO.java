@@ -0,0 +1,38 @@
+package dev.smo.spring.postgres.jpa.onetomany.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IngestStatusDTO {
+
+    public enum Status {
+        PENDING, APPLIED, REJECTED
+    }
+
+    private UUID trackingId;
+
+    private Status status;
+
+    private Long authorId;
+
+    /**
+     * Id of the created book once it is applied.
+     */
+    private Long bookId;
+
+    /**
+     * Why the book was rejected.
+     */
+    private String error;
+
+}
@@ -0,0 +1,12 @@
+package dev.smo.spring.postgres.jpa.onetomany.model;
+
+/**
+ * An author with the version it was read at. Both are read by the same query and cached as one entry, so the ETag
+ * of a response always belongs to its body.
+ */
+public record VersionedAuthorDTO(AuthorDTO author, Long version) {
+
+    public VersionedAuthorDTO(Long id, String firstName, String lastName, Long version) {
+        this(new AuthorDTO(id, firstName, lastName), version);
+    }
+}
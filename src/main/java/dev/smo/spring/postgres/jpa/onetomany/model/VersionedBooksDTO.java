@@ -0,0 +1,10 @@
+package dev.smo.spring.postgres.jpa.onetomany.model;
+
+import java.util.List;
+
+/**
+ * The books of an author with the version of the author they were read at. Adding a book increments the version,
+ * so like {@link VersionedAuthorDTO} both are read by the same query and cached as one entry.
+ */
+public record VersionedBooksDTO(List<BookDTO> books, Long version) {
+}
@@ -0,0 +1,17 @@
+package dev.smo.spring.postgres.jpa.onetomany.repository;
+
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One row of an author left joined with its books, the book columns are {@code null} for authors without books.
+ */
+public record AuthorBookRow(Long authorId, String firstName, String lastName,
+                            Long bookId, String title, BigDecimal price, LocalDate publishDate) {
+
+    public BookDTO toBookDTO() {
+        return new BookDTO(bookId, title, price, publishDate);
+    }
+}
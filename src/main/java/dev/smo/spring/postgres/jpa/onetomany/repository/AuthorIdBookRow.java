@@ -0,0 +1,16 @@
+package dev.smo.spring.postgres.jpa.onetomany.repository;
+
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A book with the id of its author, for loading the books of many authors in one query.
+ */
+public record AuthorIdBookRow(Long authorId, Long bookId, String title, BigDecimal price, LocalDate publishDate) {
+
+    public BookDTO toBookDTO() {
+        return new BookDTO(bookId, title, price, publishDate);
+    }
+}
@@ -1,12 +1,23 @@
 package dev.smo.spring.postgres.jpa.onetomany.repository;
 
 import dev.smo.spring.postgres.jpa.onetomany.entities.Author;
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.VersionedAuthorDTO;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AuthorRepository extends JpaRepository<Author, Long> {
 
@@ -20,5 +31,82 @@ public interface AuthorRepository extends JpaRepository<Author, Long> {
     @Query("from Author a left join fetch a.books")
     List<Author> findAll();
 
+    /**
+     * Selects straight into a DTO for the read endpoints, no entity is hydrated, snapshotted for dirty checking or
+     * kept in the persistence context.
+     */
+    @Query("select new dev.smo.spring.postgres.jpa.onetomany.model.AuthorDTO(a.id, a.firstName, a.lastName) " +
+            "from Author a where a.id = :id")
+    Optional<AuthorDTO> findAuthorDtoById(@Param("id") Long id);
+
+    @Query("select new dev.smo.spring.postgres.jpa.onetomany.model.VersionedAuthorDTO(a.id, a.firstName, a.lastName, a.version) " +
+            "from Author a where a.id = :id")
+    Optional<VersionedAuthorDTO> findVersionedAuthorDtoById(@Param("id") Long id);
+
+    /**
+     * Selects the version of an author with its books in one statement, so the version is the one the books were
+     * read at, two statements could see a book committed in between. Empty if there is no such author.
+     */
+    @Query("select new dev.smo.spring.postgres.jpa.onetomany.repository.VersionBookRow(a.version, b.id, b.title, b.price, b.publishDate) " +
+            "from Author a left join a.books b where a.id = :id order by b.id")
+    List<VersionBookRow> findVersionBookRowsById(@Param("id") Long id);
+
+    @Query("select new dev.smo.spring.postgres.jpa.onetomany.model.AuthorDTO(a.id, a.firstName, a.lastName) " +
+            "from Author a order by a.id")
+    List<AuthorDTO> findAuthorDtos();
+
+    @Query("select new dev.smo.spring.postgres.jpa.onetomany.model.AuthorDTO(a.id, a.firstName, a.lastName) " +
+            "from Author a where a.id > :id order by a.id")
+    List<AuthorDTO> findAuthorDtosAfter(@Param("id") Long id, Limit limit);
+
+    @Query("select new dev.smo.spring.postgres.jpa.onetomany.model.AuthorDTO(a.id, a.firstName, a.lastName) " +
+            "from Author a where a.id in :ids")
+    List<AuthorDTO> findAuthorDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Finds authors whose name contains words starting with every word of the prefix query or is similar to the
+     * text, served by the full-text and trigram indexes on the full name, see {@code BookRepository#searchByTitle}.
+     */
+    @Query(value = """
+            select id, score from (
+                select a.id as id,
+                       cast(ts_rank(to_tsvector('simple', coalesce(a.first_name, '') || ' ' || coalesce(a.last_name, '')),
+                                    to_tsquery('simple', :prefixQuery))
+                            + similarity(coalesce(a.first_name, '') || ' ' || coalesce(a.last_name, ''), :text)
+                            as double precision) as score
+                from author a
+                where to_tsvector('simple', coalesce(a.first_name, '') || ' ' || coalesce(a.last_name, ''))
+                          @@ to_tsquery('simple', :prefixQuery)
+                   or (coalesce(a.first_name, '') || ' ' || coalesce(a.last_name, '')) % :text
+            ) hits
+            where score < :afterScore or (score = :afterScore and id > :afterId)
+            order by score desc, id
+            limit :limit""", nativeQuery = true)
+    List<SearchHit> searchByName(@Param("text") String text, @Param("prefixQuery") String prefixQuery,
+                                 @Param("afterScore") double afterScore, @Param("afterId") long afterId,
+                                 @Param("limit") int limit);
+
+    @Query("select a.version from Author a where a.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Loads an author and locks its row until the end of the transaction, without its books.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Author a where a.id = :id")
+    Optional<Author> findByIdForUpdate(@Param("id") Long id);
+
     void deleteByFirstName(String firstName);
+
+    /**
+     * Streams all authors with their books as flat rows ordered by author, must be consumed inside a transaction
+     * and closed afterwards. The rows are not managed entities, so the persistence context does not grow.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new dev.smo.spring.postgres.jpa.onetomany.repository.AuthorBookRow(a.id, a.firstName, a.lastName, b.id, b.title, b.price, b.publishDate) " +
+            "from Author a left join a.books b order by a.id, b.id")
+    Stream<AuthorBookRow> streamAllWithBooks();
 }
@@ -0,0 +1,61 @@
+package dev.smo.spring.postgres.jpa.onetomany.repository;
+
+import dev.smo.spring.postgres.jpa.onetomany.entities.AuthorStats;
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorStatsDTO;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface AuthorStatsRepository extends JpaRepository<AuthorStats, Long> {
+
+    /**
+     * Adds an inserted book to the summary of its author, also used by {@code ReactiveBookServiceImpl}.
+     */
+    String ADD_BOOK = """
+            update author_stats s set
+                book_count = s.book_count + 1,
+                price_count = s.price_count + case when b.price is null then 0 else 1 end,
+                price_sum = s.price_sum + coalesce(b.price, 0),
+                min_price = least(s.min_price, b.price),
+                max_price = greatest(s.max_price, b.price),
+                first_publish_date = least(s.first_publish_date, b.publish_date),
+                last_publish_date = greatest(s.last_publish_date, b.publish_date)
+            from book b
+            where b.id = :bookId and s.author_id = b.author_id""";
+
+    @Query("select new dev.smo.spring.postgres.jpa.onetomany.model.AuthorStatsDTO(s.authorId, s.bookCount, s.minPrice, s.maxPrice, " +
+            "cast(round(s.priceSum / nullif(s.priceCount, 0), 2) as BigDecimal), s.firstPublishDate, s.lastPublishDate) " +
+            "from AuthorStats s where s.authorId = :authorId")
+    Optional<AuthorStatsDTO> findAuthorStatsDtoById(@Param("authorId") Long authorId);
+
+    /**
+     * @return the number of updated rows, {@code 0} if the author has no summary yet
+     */
+    @Modifying(flushAutomatically = true)
+    // without the space Hibernate would evict every second-level cache region after a native update
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "author_stats"))
+    @Query(value = ADD_BOOK, nativeQuery = true)
+    int addBook(@Param("bookId") Long bookId);
+
+    /**
+     * Creates the summary of an author from all of its books, does nothing if there is one already.
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "author_stats"))
+    @Query(value = """
+            insert into author_stats (author_id, book_count, price_count, price_sum, min_price, max_price,
+                                      first_publish_date, last_publish_date)
+            select b.author_id, count(*), count(b.price), coalesce(sum(b.price), 0), min(b.price), max(b.price),
+                   min(b.publish_date), max(b.publish_date)
+            from book b
+            where b.author_id = :authorId
+            group by b.author_id
+            on conflict (author_id) do nothing""", nativeQuery = true)
+    int insertFromBooks(@Param("authorId") Long authorId);
+}
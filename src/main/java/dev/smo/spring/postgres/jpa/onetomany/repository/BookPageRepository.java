@@ -0,0 +1,23 @@
+package dev.smo.spring.postgres.jpa.onetomany.repository;
+
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookFilter;
+
+import java.util.List;
+
+/**
+ * Keyset pages of the books of an author, the query is assembled from the filter and sort, see
+ * {@link BookPageRepositoryImpl}.
+ */
+public interface BookPageRepository {
+
+    /**
+     * Selects up to limit books of an author in the range of the filter into DTOs, ordered by the sort and starting
+     * after the position of the last book of the previous page.
+     *
+     * @param afterValue the sort key value of the last book of the previous page, {@code null} if it has none
+     * @param afterId    the id of the last book of the previous page, {@code null} for the first page
+     */
+    List<BookDTO> findBookDtoPage(Long authorId, BookFilter filter, BookSort sort, Object afterValue, Long afterId,
+                                  int limit);
+}
@@ -0,0 +1,102 @@
+package dev.smo.spring.postgres.jpa.onetomany.repository;
+
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Reads a page as one or two index range scans: the books with a value of the sort key are continued after the
+ * {@code (value, id)} of the cursor with a row comparison, which PostgreSQL evaluates as start of the scan of the
+ * {@code (author_id, <attribute>, id)} index, so the cost of a page does not depend on how many books come before
+ * it. The books without a value have no position in that comparison and are read as a separate segment ordered by
+ * id, only the page that crosses from one segment into the other runs both queries.
+ */
+class BookPageRepositoryImpl implements BookPageRepository {
+
+    private static final String SELECT_BOOK_DTO =
+            "select new dev.smo.spring.postgres.jpa.onetomany.model.BookDTO(b.id, b.title, b.price, b.publishDate) " +
+            "from Book b where b.author.id = :authorId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<BookDTO> findBookDtoPage(Long authorId, BookFilter filter, BookSort sort, Object afterValue,
+                                         Long afterId, int limit) {
+        // in the order of the index: nulls last when ascending, first when descending
+        var segments = sort.descending() ? List.of(true, false) : List.of(false, true);
+        var first = afterId == null ? 0 : segments.indexOf(afterValue == null);
+        var books = new ArrayList<BookDTO>();
+        for (int i = first; i < segments.size() && books.size() < limit; i++) {
+            boolean nulls = segments.get(i);
+            if (nulls && restricts(filter, sort.key())) {
+                // a range on the sort key never matches a book without a value
+                continue;
+            }
+            books.addAll(select(authorId, filter, sort, nulls, i == first ? afterValue : null,
+                    i == first ? afterId : null, limit - books.size()));
+        }
+        return books;
+    }
+
+    private List<BookDTO> select(Long authorId, BookFilter filter, BookSort sort, boolean nulls, Object afterValue,
+                                 Long afterId, int limit) {
+        var path = "b." + sort.key().attribute();
+        var direction = sort.descending() ? " desc" : "";
+        var after = sort.descending() ? " < " : " > ";
+        var jpql = new StringBuilder(SELECT_BOOK_DTO);
+        var parameters = new HashMap<String, Object>();
+        parameters.put("authorId", authorId);
+
+        if (filter.getMinPrice() != null) {
+            jpql.append(" and b.price >= :minPrice");
+            parameters.put("minPrice", filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            jpql.append(" and b.price <= :maxPrice");
+            parameters.put("maxPrice", filter.getMaxPrice());
+        }
+        if (filter.getPublishedFrom() != null) {
+            jpql.append(" and b.publishDate >= :publishedFrom");
+            parameters.put("publishedFrom", filter.getPublishedFrom());
+        }
+        if (filter.getPublishedTo() != null) {
+            jpql.append(" and b.publishDate <= :publishedTo");
+            parameters.put("publishedTo", filter.getPublishedTo());
+        }
+
+        if (nulls) {
+            jpql.append(" and ").append(path).append(" is null");
+            if (afterId != null) {
+                jpql.append(" and b.id").append(after).append(":afterId");
+                parameters.put("afterId", afterId);
+            }
+        } else {
+            jpql.append(" and ").append(path).append(" is not null");
+            if (afterId != null) {
+                jpql.append(" and (").append(path).append(", b.id)").append(after).append("(:afterValue, :afterId)");
+                parameters.put("afterValue", afterValue);
+                parameters.put("afterId", afterId);
+            }
+        }
+        // also ordered by the sort key in the null segment, so the order matches the index and needs no sort
+        jpql.append(" order by ").append(path).append(direction).append(", b.id").append(direction);
+
+        var query = entityManager.createQuery(jpql.toString(), BookDTO.class).setMaxResults(limit);
+        parameters.forEach(query::setParameter);
+        return query.getResultList();
+    }
+
+    private static boolean restricts(BookFilter filter, BookSort.Key key) {
+        return switch (key) {
+            case PRICE -> filter.restrictsPrice();
+            case PUBLISH_DATE -> filter.restrictsPublishDate();
+            case TITLE -> false;
+        };
+    }
+}
@@ -1,16 +1,85 @@
 package dev.smo.spring.postgres.jpa.onetomany.repository;
 
 import dev.smo.spring.postgres.jpa.onetomany.entities.Book;
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorStatsDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookPageRepository {
 
     List<Book> findByTitle(String title);
 
-    @Query("select b from Book b join b.author where b.author.id = :authorId")
+    @Query("select b from Book b where b.author.id = :authorId")
     List<Book> findBooksByAuthorId(@Param("authorId") Long authorId);
+
+    /**
+     * Selects the books of an author straight into DTOs, {@code b.author.id} is the foreign key column, no join needed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("select new dev.smo.spring.postgres.jpa.onetomany.model.BookDTO(b.id, b.title, b.price, b.publishDate) " +
+            "from Book b where b.author.id = :authorId order by b.id")
+    List<BookDTO> findBookDtosByAuthorId(@Param("authorId") Long authorId);
+
+    /**
+     * Loads the books of many authors with a single {@code in} query instead of one query per author
+     * or a fetch join that repeats the author columns for every book.
+     */
+    @Query("select new dev.smo.spring.postgres.jpa.onetomany.repository.AuthorIdBookRow(b.author.id, b.id, b.title, b.price, b.publishDate) " +
+            "from Book b where b.author.id in :authorIds order by b.author.id, b.id")
+    List<AuthorIdBookRow> findBookRowsByAuthorIdIn(@Param("authorIds") Collection<Long> authorIds);
+
+    /**
+     * Aggregates the books of an author in the database, empty if the author has no books.
+     */
+    @Query("select new dev.smo.spring.postgres.jpa.onetomany.model.AuthorStatsDTO(b.author.id, count(b), min(b.price), max(b.price), " +
+            "cast(round(avg(b.price), 2) as BigDecimal), min(b.publishDate), max(b.publishDate)) " +
+            "from Book b where b.author.id = :authorId group by b.author.id")
+    Optional<AuthorStatsDTO> findAuthorStatsDtoByAuthorId(@Param("authorId") Long authorId);
+
+    /**
+     * Aggregates the books of the authors after the given author id, one row per author with books. The groups are
+     * read in the order of the {@code book (author_id, id)} index, so only the books of the page are aggregated.
+     */
+    @Query("select new dev.smo.spring.postgres.jpa.onetomany.model.AuthorStatsDTO(b.author.id, count(b), min(b.price), max(b.price), " +
+            "cast(round(avg(b.price), 2) as BigDecimal), min(b.publishDate), max(b.publishDate)) " +
+            "from Book b where b.author.id > :authorId group by b.author.id order by b.author.id")
+    List<AuthorStatsDTO> findAuthorStatsDtosAfter(@Param("authorId") Long authorId, Limit limit);
+
+    @Query("select new dev.smo.spring.postgres.jpa.onetomany.model.BookDTO(b.id, b.title, b.price, b.publishDate) " +
+            "from Book b where b.id in :ids")
+    List<BookDTO> findBookDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Finds books whose title contains words starting with every word of the prefix query or is similar to the text,
+     * served by the full-text and trigram indexes on {@code book.title}. Hits are ranked by their score and resumed
+     * after the score and id of the last hit of the previous page.
+     *
+     * @param prefixQuery a {@code tsquery} like {@code spring:* & boot:*}
+     * @param afterScore  score of the last hit of the previous page, {@code Infinity} for the first page
+     */
+    @Query(value = """
+            select id, score from (
+                select b.id as id,
+                       cast(ts_rank(to_tsvector('simple', b.title), to_tsquery('simple', :prefixQuery))
+                            + similarity(b.title, :text) as double precision) as score
+                from book b
+                where to_tsvector('simple', b.title) @@ to_tsquery('simple', :prefixQuery)
+                   or b.title % :text
+            ) hits
+            where score < :afterScore or (score = :afterScore and id > :afterId)
+            order by score desc, id
+            limit :limit""", nativeQuery = true)
+    List<SearchHit> searchByTitle(@Param("text") String text, @Param("prefixQuery") String prefixQuery,
+                                  @Param("afterScore") double afterScore, @Param("afterId") long afterId,
+                                  @Param("limit") int limit);
 }
@@ -0,0 +1,57 @@
+package dev.smo.spring.postgres.jpa.onetomany.repository;
+
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.function.Function;
+
+/**
+ * Order of a page of books by one of the sortable attributes with the id as tie-breaker. Books without a value come
+ * last in ascending and first in descending order, as PostgreSQL orders nulls, so both directions are read from the
+ * same {@code (author_id, <attribute>, id)} index.
+ */
+public record BookSort(Key key, boolean descending) {
+
+    public enum Key {
+
+        PUBLISH_DATE("publishDate", BookDTO::getPublishDate, LocalDate::parse),
+        PRICE("price", BookDTO::getPrice, BigDecimal::new),
+        TITLE("title", BookDTO::getTitle, Function.identity());
+
+        private final String attribute;
+        private final Function<BookDTO, Object> getter;
+        private final Function<String, Object> parser;
+
+        Key(String attribute, Function<BookDTO, Object> getter, Function<String, Object> parser) {
+            this.attribute = attribute;
+            this.getter = getter;
+            this.parser = parser;
+        }
+
+        /**
+         * Name of the attribute in {@code Book} and {@code BookDTO}, also the name of the key in the API.
+         */
+        public String attribute() {
+            return attribute;
+        }
+
+        public Object valueOf(BookDTO book) {
+            return getter.apply(book);
+        }
+
+        /**
+         * Parses the {@code toString} of a value of the attribute.
+         *
+         * @throws IllegalArgumentException or {@link java.time.format.DateTimeParseException} if the text is no value
+         */
+        public Object parse(String value) {
+            return parser.apply(value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return key.attribute() + (descending ? ",desc" : ",asc");
+    }
+}
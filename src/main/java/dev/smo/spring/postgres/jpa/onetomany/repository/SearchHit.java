@@ -0,0 +1,11 @@
+package dev.smo.spring.postgres.jpa.onetomany.repository;
+
+/**
+ * Id and score of a row found by a search query, ordered by descending score and then by id.
+ */
+public interface SearchHit {
+
+    Long getId();
+
+    Double getScore();
+}
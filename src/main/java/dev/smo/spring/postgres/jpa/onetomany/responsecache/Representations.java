@@ -0,0 +1,119 @@
+package dev.smo.spring.postgres.jpa.onetomany.responsecache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Strong ETags and {@code Vary} of responses whose representation is negotiated. RFC 9110 requires a different strong
+ * validator for every representation of a resource, so the ETag of a version names the media type and the content
+ * coding of the body, {@code "3"} for plain JSON, {@code "3-gzip"} for gzip compressed JSON and {@code "3-cbor"} for
+ * CBOR.
+ */
+public final class Representations {
+
+    public static final String GZIP = "gzip";
+
+    public static final String CBOR = "cbor";
+
+    private Representations() {
+    }
+
+    /**
+     * The strong ETag of a version in the representation with the given tags, the plain JSON has none.
+     */
+    public static String eTag(long version, String... tags) {
+        var eTag = new StringBuilder("\"").append(version);
+        for (var tag : tags) {
+            eTag.append('-').append(tag);
+        }
+        return eTag.append('"').toString();
+    }
+
+    /**
+     * The strong ETag of a version in the media type the request negotiates, JSON or else CBOR, the only other media
+     * type with a message converter.
+     */
+    public static String eTag(WebRequest request, long version) {
+        return prefersJson(request) ? eTag(version) : eTag(version, CBOR);
+    }
+
+    /**
+     * The version of an ETag of any representation, {@code null} if it is no strong ETag created by {@link #eTag}.
+     */
+    public static Long version(String eTag) {
+        var trimmed = eTag.trim();
+        if (trimmed.length() < 3 || !trimmed.startsWith("\"") || !trimmed.endsWith("\"")) {
+            return null;
+        }
+        var opaque = trimmed.substring(1, trimmed.length() - 1);
+        var end = opaque.indexOf('-');
+        try {
+            return Long.parseLong(end < 0 ? opaque : opaque.substring(0, end));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Whether the If-None-Match of the request matches the ETag, compared weakly as RFC 9110 requires for it.
+     */
+    public static boolean notModified(WebRequest request, String eTag) {
+        var ifNoneMatch = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (eTag == null || ifNoneMatch == null) {
+            return false;
+        }
+        for (var header : ifNoneMatch) {
+            for (var candidate : header.split(",")) {
+                var tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(eTag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A {@code 304 Not Modified} with the ETag and {@code Vary} the full response would have.
+     */
+    public static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .build();
+    }
+
+    /**
+     * A {@code 200 OK} of a negotiated representation with its ETag, if any.
+     */
+    public static ResponseEntity.BodyBuilder ok(String eTag) {
+        var response = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        return eTag != null ? response.eTag(eTag) : response;
+    }
+
+    /**
+     * @return whether JSON is the media type the request prefers, also without an Accept header
+     */
+    public static boolean prefersJson(WebRequest request) {
+        var accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isBlank()) {
+            return true;
+        }
+        var mediaTypes = MediaType.parseMediaTypes(accept);
+        MimeTypeUtils.sortBySpecificity(mediaTypes);
+        var preferred = mediaTypes.stream().max((a, b) -> Double.compare(a.getQualityValue(), b.getQualityValue()));
+        return preferred.isPresent() && preferred.get().isCompatibleWith(MediaType.APPLICATION_JSON);
+    }
+
+    static boolean acceptsGzip(WebRequest request) {
+        var acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains(GZIP);
+    }
+}
@@ -0,0 +1,165 @@
+package dev.smo.spring.postgres.jpa.onetomany.responsecache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.smo.spring.postgres.jpa.onetomany.datasource.ReadYourWrites;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caches the JSON bytes of response bodies per resource and version, and a gzip compressed copy of the larger ones,
+ * so a hot read endpoint neither loads nor serializes an unchanged resource again.
+ * <p>
+ * The cache is bounded by the bytes it holds and entries expire after a time to live. Bodies are always loaded from
+ * the primary, see {@link ReadYourWrites#onPrimary}. The metrics of the {@code responses} cache show the hit rate,
+ * {@code app.response.cache.bytes.served} the bytes written from the cache and
+ * {@code app.response.cache.bytes.saved} the bytes saved by serving the compressed copy.
+ */
+public class ResponseCache {
+
+    private record Key(String resource, long version) {
+    }
+
+    /**
+     * The plain body and the gzip compressed body, {@code null} if compressing did not pay off.
+     */
+    private record Body(ByteBuffer identity, ByteBuffer gzip) {
+
+        int weight() {
+            return identity.capacity() + (gzip != null ? gzip.capacity() : 0);
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final ResponseCacheProperties properties;
+    private final Cache<Key, Body> cache;
+    private final Counter identityBytesServed;
+    private final Counter gzipBytesServed;
+    private final Counter bytesSaved;
+
+    public ResponseCache(ObjectMapper objectMapper, ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumSize().toBytes())
+                .<Key, Body>weigher((key, body) -> body.weight())
+                .expireAfterWrite(properties.getTimeToLive())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "responses");
+        Gauge.builder("app.response.cache.size", cache, c -> c.policy().eviction().orElseThrow().weightedSize().orElse(0))
+                .description("Bytes of the cached response bodies")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.identityBytesServed = bytesServed(meterRegistry, "identity");
+        this.gzipBytesServed = bytesServed(meterRegistry, Representations.GZIP);
+        this.bytesSaved = Counter.builder("app.response.cache.bytes.saved")
+                .description("Bytes not sent because the compressed body was served")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Responds with the cached JSON of the resource version, serializing the body only if it is not cached yet.
+     * Requests that prefer another media type, e.g. CBOR, get the body for the regular message converters. Every
+     * branch answers a matching If-None-Match with {@code 304} and the ETag of the representation it would send.
+     *
+     * @param version changes whenever the content of the resource changes
+     * @param eTagged whether the version is also the ETag of the resource, see {@link Representations#eTag}
+     */
+    public ResponseEntity<?> respond(WebRequest request, String resource, long version, boolean eTagged, Supplier<?> body) {
+        if (!properties.isEnabled() || !Representations.prefersJson(request)) {
+            var eTag = eTagged ? Representations.eTag(request, version) : null;
+            if (Representations.notModified(request, eTag)) {
+                return Representations.notModified(eTag);
+            }
+            return Representations.ok(eTag).body(body.get());
+        }
+        // the body is cached for all clients, so it must not be read from a replica that lags behind the version
+        var cached = cache.get(new Key(resource, version), key -> serialize(ReadYourWrites.onPrimary(body)));
+        if (cached.gzip() != null && Representations.acceptsGzip(request)) {
+            var eTag = eTagged ? Representations.eTag(version, Representations.GZIP) : null;
+            if (Representations.notModified(request, eTag)) {
+                return Representations.notModified(eTag);
+            }
+            gzipBytesServed.increment(cached.gzip().capacity());
+            bytesSaved.increment(cached.identity().capacity() - cached.gzip().capacity());
+            return Representations.ok(eTag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.CONTENT_ENCODING, Representations.GZIP)
+                    .body(bytes(cached.gzip()));
+        }
+        var eTag = eTagged ? Representations.eTag(version) : null;
+        if (Representations.notModified(request, eTag)) {
+            return Representations.notModified(eTag);
+        }
+        identityBytesServed.increment(cached.identity().capacity());
+        return Representations.ok(eTag).contentType(MediaType.APPLICATION_JSON).body(bytes(cached.identity()));
+    }
+
+    private Body serialize(Object value) {
+        try {
+            var identity = objectMapper.writeValueAsBytes(value);
+            byte[] gzip = null;
+            if (identity.length >= properties.getCompressionMinSize().toBytes()) {
+                gzip = gzip(identity);
+                if (gzip.length >= identity.length) {
+                    gzip = null;
+                }
+            }
+            return new Body(buffer(identity), gzip != null ? buffer(gzip) : null);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ByteBuffer buffer(byte[] bytes) {
+        if (!properties.isOffHeap()) {
+            return ByteBuffer.wrap(bytes);
+        }
+        return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return buffer.array();
+        }
+        // the copy is short lived, the cached bytes stay outside the heap
+        var bytes = new byte[buffer.capacity()];
+        buffer.get(0, bytes);
+        return bytes;
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        var out = new ByteArrayOutputStream(bytes.length / 4);
+        try (var gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static Counter bytesServed(MeterRegistry meterRegistry, String encoding) {
+        return Counter.builder("app.response.cache.bytes.served")
+                .description("Bytes of response bodies served from the cache")
+                .baseUnit("bytes")
+                .tag("encoding", encoding)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,20 @@
+package dev.smo.spring.postgres.jpa.onetomany.responsecache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+public class ResponseCacheConfiguration {
+
+    /**
+     * Always present, {@code app.response-cache.enabled=false} makes it serialize every response as before.
+     */
+    @Bean
+    ResponseCache responseCache(ObjectMapper objectMapper, ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        return new ResponseCache(objectMapper, properties, meterRegistry);
+    }
+}
@@ -0,0 +1,39 @@
+package dev.smo.spring.postgres.jpa.onetomany.responsecache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Serialized response bodies of hot read endpoints, see {@link ResponseCache}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.response-cache")
+public class ResponseCacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Bytes of all cached bodies, plain and compressed, before the least valuable ones are evicted.
+     */
+    private DataSize maximumSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Bodies are dropped this long after they were cached. Bounds how long a body can be stale when its version was
+     * not incremented, e.g. after a write through another instance.
+     */
+    private Duration timeToLive = Duration.ofMinutes(5);
+
+    /**
+     * Keeps the bodies in direct buffers outside the heap, so a large cache does not add to the old generation.
+     */
+    private boolean offHeap;
+
+    /**
+     * Bodies of at least this size are also kept gzip compressed for clients that accept it.
+     */
+    private DataSize compressionMinSize = DataSize.ofKilobytes(1);
+
+}
@@ -0,0 +1,45 @@
+package dev.smo.spring.postgres.jpa.onetomany.responsecache;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Invalidation versions of cached resources that have no version column of their own, like the list of all authors.
+ * A write increments the version of the resources it changes, the cached bodies of older versions are never
+ * served again.
+ * <p>
+ * Only writes through the services increment the versions, and only in this instance.
+ */
+@Component
+public class ResponseCacheVersions {
+
+    public static final String AUTHORS = "authors";
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public long current(String resource) {
+        return versions.computeIfAbsent(resource, r -> new AtomicLong()).get();
+    }
+
+    /**
+     * Increments the version after the current transaction committed, a request that read the version before
+     * could otherwise cache the old content under the new version.
+     */
+    public void increment(String resource) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.computeIfAbsent(resource, r -> new AtomicLong()).incrementAndGet();
+                }
+            });
+        } else {
+            versions.computeIfAbsent(resource, r -> new AtomicLong()).incrementAndGet();
+        }
+    }
+}
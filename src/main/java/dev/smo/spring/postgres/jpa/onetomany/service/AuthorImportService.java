@@ -0,0 +1,15 @@
+package dev.smo.spring.postgres.jpa.onetomany.service;
+
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorWithBooksDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.ImportResultDTO;
+
+import java.util.Iterator;
+
+public interface AuthorImportService {
+
+    /**
+     * Inserts all authors with their books in one transaction, reading them one by one from the iterator.
+     */
+    ImportResultDTO importAuthors(Iterator<AuthorWithBooksDTO> authors);
+
+}
@@ -0,0 +1,79 @@
+package dev.smo.spring.postgres.jpa.onetomany.service;
+
+import dev.smo.spring.postgres.jpa.onetomany.config.CacheConfiguration;
+import dev.smo.spring.postgres.jpa.onetomany.entities.Author;
+import dev.smo.spring.postgres.jpa.onetomany.exception.BadRequestException;
+import dev.smo.spring.postgres.jpa.onetomany.mapper.BookMapper;
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorWithBooksDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.ImportResultDTO;
+import dev.smo.spring.postgres.jpa.onetomany.responsecache.ResponseCacheVersions;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Iterator;
+
+@Service
+@Timed(value = "app.service", histogram = true)
+public class AuthorImportServiceImpl implements AuthorImportService {
+
+    /**
+     * Number of pending author and book rows after which the persistence context is flushed as JDBC batches and
+     * cleared. The flush follows the author that reaches it, so it may cover a few rows more, and ordered inserts
+     * split the rows into author and book batches of {@code hibernate.jdbc.batch_size}, the last of each is partial.
+     */
+    static final int FLUSH_INTERVAL = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final BookMapper bookMapper;
+    private final ResponseCacheVersions responseCacheVersions;
+
+    public AuthorImportServiceImpl(BookMapper bookMapper, ResponseCacheVersions responseCacheVersions) {
+        this.bookMapper = bookMapper;
+        this.responseCacheVersions = responseCacheVersions;
+    }
+
+    // ids that were looked up before they existed are cached as absent
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfiguration.AUTHORS_CACHE, CacheConfiguration.AUTHOR_BOOKS_CACHE}, allEntries = true)
+    public ImportResultDTO importAuthors(Iterator<AuthorWithBooksDTO> authors) {
+        responseCacheVersions.increment(ResponseCacheVersions.AUTHORS);
+        long authorCount = 0;
+        long bookCount = 0;
+        int pending = 0;
+        while (authors.hasNext()) {
+            var authorDTO = authors.next();
+            if (authorDTO.getId() != null) {
+                throw new BadRequestException("Inserting ID with bulk import is not allowed!");
+            }
+            var author = Author.builder()
+                    .firstName(authorDTO.getFirstName())
+                    .lastName(authorDTO.getLastName())
+                    .build();
+            if (authorDTO.getBooks() != null) {
+                for (var bookDTO : authorDTO.getBooks()) {
+                    if (bookDTO.getId() != null) {
+                        throw new BadRequestException("Inserting ID with bulk import is not allowed!");
+                    }
+                    author.addBook(bookMapper.toBook(bookDTO));
+                }
+            }
+            entityManager.persist(author);
+            authorCount++;
+            bookCount += author.getBooks().size();
+            pending += 1 + author.getBooks().size();
+            if (pending >= FLUSH_INTERVAL) {
+                entityManager.flush();
+                entityManager.clear();
+                pending = 0;
+            }
+        }
+        return ImportResultDTO.builder().authors(authorCount).books(bookCount).build();
+    }
+}
@@ -1,15 +1,55 @@
 package dev.smo.spring.postgres.jpa.onetomany.service;
 
 import dev.smo.spring.postgres.jpa.onetomany.model.AuthorDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorWithBooksDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.CursorPage;
+import dev.smo.spring.postgres.jpa.onetomany.model.VersionedAuthorDTO;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface AuthorService {
 
-    Optional<AuthorDTO> findById(Long id);
+    /**
+     * The author with the version it was read at, both from the same read.
+     */
+    Optional<VersionedAuthorDTO> findVersionedById(Long id);
 
     List<AuthorDTO> findAll();
 
+    /**
+     * Finds the authors with the given ids in one query, in the order of the ids, ids not found are left out.
+     */
+    List<AuthorDTO> findAllByIds(Collection<Long> ids);
+
+    CursorPage<AuthorDTO> findPage(String after, int limit);
+
+    /**
+     * Finds authors whose name has words starting with the words of the query or is similar to it, best matches first.
+     *
+     * @throws dev.smo.spring.postgres.jpa.onetomany.exception.BadRequestException if the query or cursor is invalid
+     */
+    CursorPage<AuthorDTO> search(String query, String after, int limit);
+
     AuthorDTO save(AuthorDTO authorDTO);
+
+    /**
+     * Updates the names of an author, optimistically locked by its version.
+     *
+     * @param expectedVersion the version the client has seen, {@code null} to only guard against concurrent updates
+     * @throws dev.smo.spring.postgres.jpa.onetomany.exception.PreconditionFailedException if the author has another version
+     */
+    Optional<VersionedAuthorDTO> update(Long id, AuthorDTO authorDTO, Long expectedVersion);
+
+    /**
+     * The version of an author, it changes with every change of the author or its books.
+     */
+    Optional<Long> findVersionById(Long id);
+
+    /**
+     * Passes every author with its books to the consumer, one at a time and without holding all of them in memory.
+     */
+    void exportAllWithBooks(Consumer<AuthorWithBooksDTO> consumer);
 }
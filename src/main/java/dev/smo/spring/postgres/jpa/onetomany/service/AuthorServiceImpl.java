@@ -1,39 +1,157 @@
 package dev.smo.spring.postgres.jpa.onetomany.service;
 
+import dev.smo.spring.postgres.jpa.onetomany.config.CacheConfiguration;
+import dev.smo.spring.postgres.jpa.onetomany.datasource.ReadYourWrites;
+import dev.smo.spring.postgres.jpa.onetomany.exception.PreconditionFailedException;
 import dev.smo.spring.postgres.jpa.onetomany.mapper.AuthorMapper;
 import dev.smo.spring.postgres.jpa.onetomany.model.AuthorDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorWithBooksDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.CursorPage;
+import dev.smo.spring.postgres.jpa.onetomany.model.VersionedAuthorDTO;
 import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorRepository;
+import dev.smo.spring.postgres.jpa.onetomany.responsecache.ResponseCacheVersions;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "app.service", histogram = true)
 public class AuthorServiceImpl implements AuthorService {
 
     private final AuthorRepository authorRepository;
     private final AuthorMapper authorMapper;
+    private final ResponseCacheVersions responseCacheVersions;
 
 
-    public AuthorServiceImpl(AuthorRepository authorRepository, AuthorMapper authorMapper) {
+    public AuthorServiceImpl(AuthorRepository authorRepository, AuthorMapper authorMapper,
+                             ResponseCacheVersions responseCacheVersions) {
         this.authorRepository = authorRepository;
         this.authorMapper = authorMapper;
+        this.responseCacheVersions = responseCacheVersions;
     }
 
     @Override
-    public Optional<AuthorDTO> findById(Long id) {
-        var author = authorRepository.findById(id);
-        return author.map(authorMapper::toAuthorDTO);
+    @Cacheable(cacheNames = CacheConfiguration.AUTHORS_CACHE, key = "#id", sync = true)
+    @Transactional(readOnly = true)
+    public Optional<VersionedAuthorDTO> findVersionedById(Long id) {
+        // a miss fills the cache for all clients, so it must not be read from a replica that lags behind
+        return ReadYourWrites.onPrimary(() -> authorRepository.findVersionedAuthorDtoById(id));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<AuthorDTO> findAll() {
-        return authorRepository.findAll().stream().map(authorMapper::toAuthorDTO).toList();
+        return authorRepository.findAuthorDtos();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AuthorDTO> findAllByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        var byId = authorRepository.findAuthorDtosByIdIn(ids).stream()
+                .collect(Collectors.toMap(AuthorDTO::getId, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<AuthorDTO> findPage(String after, int limit) {
+        long afterId = after == null ? 0L : Cursors.decodeId(after);
+        var authors = authorRepository.findAuthorDtosAfter(afterId, Limit.of(limit + 1));
+        return Cursors.page(authors, limit, author -> Cursors.encode(author.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<AuthorDTO> search(String query, String after, int limit) {
+        var search = SearchQuery.of(query, after);
+        var hits = authorRepository.searchByName(search.text(), search.prefixQuery(), search.afterScore(),
+                search.afterId(), limit + 1);
+        return SearchQuery.page(hits, limit, authorRepository::findAuthorDtosByIdIn, AuthorDTO::getId);
     }
 
     @Override
     public AuthorDTO save(AuthorDTO authorDTO) {
         var author = authorMapper.toAuthor(authorDTO);
-        return authorMapper.toAuthorDTO(authorRepository.save(author));
+        var saved = authorMapper.toAuthorDTO(authorRepository.save(author));
+        responseCacheVersions.increment(ResponseCacheVersions.AUTHORS);
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    @CachePut(cacheNames = CacheConfiguration.AUTHORS_CACHE, key = "#id", unless = "#result == null")
+    public Optional<VersionedAuthorDTO> update(Long id, AuthorDTO authorDTO, Long expectedVersion) {
+        var found = authorRepository.findById(id);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        var author = found.get();
+        if (expectedVersion != null && !expectedVersion.equals(author.getVersion())) {
+            throw modified(id);
+        }
+        author.setFirstName(authorDTO.getFirstName());
+        author.setLastName(authorDTO.getLastName());
+        try {
+            // flush here, so a concurrent update is detected by the version check of this update statement
+            var updated = authorRepository.saveAndFlush(author);
+            responseCacheVersions.increment(ResponseCacheVersions.AUTHORS);
+            return Optional.of(new VersionedAuthorDTO(authorMapper.toAuthorDTO(updated), updated.getVersion()));
+        } catch (OptimisticLockingFailureException e) {
+            throw modified(id);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> findVersionById(Long id) {
+        return authorRepository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAllWithBooks(Consumer<AuthorWithBooksDTO> consumer) {
+        try (var rows = authorRepository.streamAllWithBooks()) {
+            AuthorWithBooksDTO current = null;
+            for (var it = rows.iterator(); it.hasNext(); ) {
+                var row = it.next();
+                if (current == null || !current.getId().equals(row.authorId())) {
+                    if (current != null) {
+                        consumer.accept(current);
+                    }
+                    current = AuthorWithBooksDTO.builder()
+                            .id(row.authorId())
+                            .firstName(row.firstName())
+                            .lastName(row.lastName())
+                            .books(new ArrayList<>())
+                            .build();
+                }
+                if (row.bookId() != null) {
+                    current.getBooks().add(row.toBookDTO());
+                }
+            }
+            if (current != null) {
+                consumer.accept(current);
+            }
+        }
+    }
+
+    private static PreconditionFailedException modified(Long id) {
+        return new PreconditionFailedException("Author with id: '" + id + "' was modified!");
     }
 }
@@ -0,0 +1,21 @@
+package dev.smo.spring.postgres.jpa.onetomany.service;
+
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorStatsDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.CursorPage;
+
+import java.util.Optional;
+
+public interface AuthorStatsService {
+
+    /**
+     * The stats of the books of an author, a zero book count for an author without books.
+     *
+     * @return empty if there is no author with this id
+     */
+    Optional<AuthorStatsDTO> findByAuthorId(Long authorId);
+
+    /**
+     * The stats of the authors with books, ordered by author id.
+     */
+    CursorPage<AuthorStatsDTO> findPage(String after, int limit);
+}
@@ -0,0 +1,58 @@
+package dev.smo.spring.postgres.jpa.onetomany.service;
+
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorStatsDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.CursorPage;
+import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorRepository;
+import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorStatsRepository;
+import dev.smo.spring.postgres.jpa.onetomany.repository.BookRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Service
+@Timed(value = "app.service", histogram = true)
+public class AuthorStatsServiceImpl implements AuthorStatsService {
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final AuthorStatsRepository authorStatsRepository;
+    private final boolean summaryTable;
+
+    public AuthorStatsServiceImpl(BookRepository bookRepository, AuthorRepository authorRepository,
+                                  AuthorStatsRepository authorStatsRepository,
+                                  @Value("${app.stats.summary-table.enabled:false}") boolean summaryTable) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.authorStatsRepository = authorStatsRepository;
+        this.summaryTable = summaryTable;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<AuthorStatsDTO> findByAuthorId(Long authorId) {
+        if (summaryTable) {
+            // a single row lookup, authors without a summary yet fall through to the aggregate query
+            var summary = authorStatsRepository.findAuthorStatsDtoById(authorId);
+            if (summary.isPresent()) {
+                return summary;
+            }
+        }
+        var stats = bookRepository.findAuthorStatsDtoByAuthorId(authorId);
+        if (stats.isPresent() || !authorRepository.existsById(authorId)) {
+            return stats;
+        }
+        return Optional.of(AuthorStatsDTO.builder().authorId(authorId).bookCount(0L).build());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<AuthorStatsDTO> findPage(String after, int limit) {
+        long afterId = after == null ? 0L : Cursors.decodeId(after);
+        var stats = bookRepository.findAuthorStatsDtosAfter(afterId, Limit.of(limit + 1));
+        return Cursors.page(stats, limit, authorStats -> Cursors.encode(authorStats.getAuthorId()));
+    }
+}
@@ -1,14 +1,52 @@
 package dev.smo.spring.postgres.jpa.onetomany.service;
 
 import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookFilter;
+import dev.smo.spring.postgres.jpa.onetomany.model.CursorPage;
+import dev.smo.spring.postgres.jpa.onetomany.model.VersionedBooksDTO;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface BookService {
 
     List<BookDTO> findAllBooksForAuthorWithId(Long authorId);
 
-    Optional<BookDTO> saveBookForAuthorWithId(BookDTO book, Long authorId);
+    /**
+     * Finds the books of an author with the version of the author they were read at, empty if there is no such author.
+     */
+    Optional<VersionedBooksDTO> findVersionedBooksForAuthorWithId(Long authorId);
+
+    /**
+     * Finds a page of the books of an author in the ranges of the filter, continued after the cursor of the previous
+     * page with the same sort.
+     *
+     * @param sort {@code publishDate}, {@code price} or {@code title}, optionally followed by {@code ,asc} or {@code ,desc}
+     * @throws dev.smo.spring.postgres.jpa.onetomany.exception.BadRequestException if the sort, filter or cursor is invalid
+     */
+    CursorPage<BookDTO> findPageOfBooksForAuthorWithId(Long authorId, BookFilter filter, String sort, String after,
+                                                       int limit);
+
+    /**
+     * Finds the books of many authors in one query, authors without books have no entry in the map.
+     */
+    Map<Long, List<BookDTO>> findAllBooksForAuthorsWithIds(Collection<Long> authorIds);
+
+    /**
+     * Adds a book to an author and increments the version of the author.
+     *
+     * @param expectedVersion the version of the author the client has seen, {@code null} for no check
+     * @throws dev.smo.spring.postgres.jpa.onetomany.exception.PreconditionFailedException if the author has another version
+     */
+    Optional<BookDTO> saveBookForAuthorWithId(BookDTO book, Long authorId, Long expectedVersion);
+
+    /**
+     * Finds books whose title has words starting with the words of the query or is similar to it, best matches first.
+     *
+     * @throws dev.smo.spring.postgres.jpa.onetomany.exception.BadRequestException if the query or cursor is invalid
+     */
+    CursorPage<BookDTO> search(String query, String after, int limit);
 
 }
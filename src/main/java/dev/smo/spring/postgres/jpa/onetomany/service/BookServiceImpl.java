@@ -1,44 +1,177 @@
 package dev.smo.spring.postgres.jpa.onetomany.service;
 
-import dev.smo.spring.postgres.jpa.onetomany.entities.Book;
+import dev.smo.spring.postgres.jpa.onetomany.config.CacheConfiguration;
+import dev.smo.spring.postgres.jpa.onetomany.datasource.ReadYourWrites;
+import dev.smo.spring.postgres.jpa.onetomany.exception.BadRequestException;
+import dev.smo.spring.postgres.jpa.onetomany.exception.PreconditionFailedException;
 import dev.smo.spring.postgres.jpa.onetomany.mapper.BookMapper;
 import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookFilter;
+import dev.smo.spring.postgres.jpa.onetomany.model.CursorPage;
+import dev.smo.spring.postgres.jpa.onetomany.model.VersionedBooksDTO;
+import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorIdBookRow;
 import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorRepository;
+import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorStatsRepository;
 import dev.smo.spring.postgres.jpa.onetomany.repository.BookRepository;
+import dev.smo.spring.postgres.jpa.onetomany.repository.BookSort;
+import dev.smo.spring.postgres.jpa.onetomany.repository.VersionBookRow;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "app.service", histogram = true)
 public class BookServiceImpl implements BookService {
 
     private final BookRepository bookRepository;
     private final BookMapper bookMapper;
     private final AuthorRepository authorRepository;
+    private final AuthorStatsRepository authorStatsRepository;
+    private final boolean statsSummaryTable;
 
-    public BookServiceImpl(BookRepository bookRepository, BookMapper bookMapper, AuthorRepository authorRepository) {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public BookServiceImpl(BookRepository bookRepository, BookMapper bookMapper, AuthorRepository authorRepository,
+                           AuthorStatsRepository authorStatsRepository,
+                           @Value("${app.stats.summary-table.enabled:false}") boolean statsSummaryTable) {
         this.bookRepository = bookRepository;
         this.bookMapper = bookMapper;
         this.authorRepository = authorRepository;
+        this.authorStatsRepository = authorStatsRepository;
+        this.statsSummaryTable = statsSummaryTable;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<BookDTO> findAllBooksForAuthorWithId(Long authorId) {
-        List<Book> books = bookRepository.findBooksByAuthorId(authorId);
-        return books.stream().map(bookMapper::toBookDTO).toList();
+        return bookRepository.findBookDtosByAuthorId(authorId);
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfiguration.AUTHOR_BOOKS_CACHE, key = "#authorId", sync = true)
+    @Transactional(readOnly = true)
+    public Optional<VersionedBooksDTO> findVersionedBooksForAuthorWithId(Long authorId) {
+        // a miss fills the cache for all clients, see AuthorServiceImpl#findVersionedById
+        var rows = ReadYourWrites.onPrimary(() -> authorRepository.findVersionBookRowsById(authorId));
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        var books = rows.stream()
+                .filter(row -> row.bookId() != null)
+                .map(VersionBookRow::toBookDTO)
+                .toList();
+        return Optional.of(new VersionedBooksDTO(books, rows.getFirst().version()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookDTO> findPageOfBooksForAuthorWithId(Long authorId, BookFilter filter, String sort,
+                                                              String after, int limit) {
+        var bookSort = bookSort(sort);
+        if (filter.getMinPrice() != null && filter.getMaxPrice() != null
+                && filter.getMinPrice().compareTo(filter.getMaxPrice()) > 0) {
+            throw new BadRequestException("minPrice must not be greater than maxPrice!");
+        }
+        if (filter.getPublishedFrom() != null && filter.getPublishedTo() != null
+                && filter.getPublishedFrom().isAfter(filter.getPublishedTo())) {
+            throw new BadRequestException("publishedFrom must not be after publishedTo!");
+        }
+        Object afterValue = null;
+        Long afterId = null;
+        if (after != null) {
+            // the cursor names its sort, a cursor of another sort would continue at a meaningless position
+            var keys = Cursors.decode(after, 3);
+            if (!bookSort.toString().equals(keys[0]) || keys[2] == null) {
+                throw Cursors.invalid(after);
+            }
+            try {
+                afterValue = keys[1] == null ? null : bookSort.key().parse(keys[1]);
+                afterId = Long.parseLong(keys[2]);
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw Cursors.invalid(after);
+            }
+        }
+        var books = bookRepository.findBookDtoPage(authorId, filter, bookSort, afterValue, afterId, limit + 1);
+        return Cursors.page(books, limit,
+                book -> Cursors.encode(bookSort, bookSort.key().valueOf(book), book.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, List<BookDTO>> findAllBooksForAuthorsWithIds(Collection<Long> authorIds) {
+        if (authorIds.isEmpty()) {
+            return Map.of();
+        }
+        return bookRepository.findBookRowsByAuthorIdIn(authorIds).stream()
+                .collect(Collectors.groupingBy(AuthorIdBookRow::authorId,
+                        Collectors.mapping(AuthorIdBookRow::toBookDTO, Collectors.toList())));
     }
 
     @Override
     @Transactional
-    public Optional<BookDTO> saveBookForAuthorWithId(BookDTO bookDTO, Long authorId) {
-        var author = authorRepository.findById(authorId);
-        if (author.isEmpty()) {
+    // the cached author carries the version, which changes with its books
+    @CacheEvict(cacheNames = {CacheConfiguration.AUTHORS_CACHE, CacheConfiguration.AUTHOR_BOOKS_CACHE}, key = "#authorId")
+    public Optional<BookDTO> saveBookForAuthorWithId(BookDTO bookDTO, Long authorId, Long expectedVersion) {
+        // locks the author row, so concurrent books of the same author and their summary updates are serialized
+        var found = authorRepository.findByIdForUpdate(authorId);
+        if (found.isEmpty()) {
             return Optional.empty();
         }
+        var author = found.get();
+        if (expectedVersion != null && !expectedVersion.equals(author.getVersion())) {
+            throw new PreconditionFailedException("Author with id: '" + authorId + "' was modified!");
+        }
+        // increments the version through the entity, so the managed author and its second-level cache entry are
+        // updated, a bulk update would invalidate the whole author region
+        entityManager.lock(author, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
         var book = bookMapper.toBook(bookDTO);
-        author.get().addBook(book);
-        return Optional.of(bookMapper.toBookDTO(bookRepository.save(book)));
+        book.setAuthor(author);
+        // keep the inverse side consistent, but only if the books are already loaded in this persistence context
+        if (Hibernate.isInitialized(author.getBooks())) {
+            author.getBooks().add(book);
+        }
+        var saved = bookRepository.save(book);
+        // the author row is locked, so the summary of the author is not updated concurrently
+        if (statsSummaryTable && authorStatsRepository.addBook(saved.getId()) == 0) {
+            authorStatsRepository.insertFromBooks(authorId);
+        }
+        return Optional.of(bookMapper.toBookDTO(saved));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookDTO> search(String query, String after, int limit) {
+        var search = SearchQuery.of(query, after);
+        var hits = bookRepository.searchByTitle(search.text(), search.prefixQuery(), search.afterScore(),
+                search.afterId(), limit + 1);
+        return SearchQuery.page(hits, limit, bookRepository::findBookDtosByIdIn, BookDTO::getId);
+    }
+
+    private static BookSort bookSort(String sort) {
+        var parts = sort.split(",", -1);
+        var key = Arrays.stream(BookSort.Key.values())
+                .filter(candidate -> candidate.attribute().equals(parts[0].strip()))
+                .findFirst();
+        var direction = parts.length == 2 ? parts[1].strip().toLowerCase() : "asc";
+        if (key.isEmpty() || parts.length > 2 || !(direction.equals("asc") || direction.equals("desc"))) {
+            throw new BadRequestException("Sort must be publishDate, price or title, optionally followed by ,asc or ,desc!");
+        }
+        return new BookSort(key.get(), direction.equals("desc"));
     }
 }
@@ -0,0 +1,73 @@
+package dev.smo.spring.postgres.jpa.onetomany.service;
+
+import dev.smo.spring.postgres.jpa.onetomany.exception.BadRequestException;
+import dev.smo.spring.postgres.jpa.onetomany.model.CursorPage;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Encodes the sort keys of the last row of a page into an opaque, URL safe cursor and back.
+ */
+final class Cursors {
+
+    private static final String SEPARATOR = ",";
+    private static final String NULL_KEY = "~";
+
+    private Cursors() {
+    }
+
+    static String encode(Object... keys) {
+        var joined = String.join(SEPARATOR, Arrays.stream(keys)
+                .map(key -> key == null ? NULL_KEY : URLEncoder.encode(key.toString(), StandardCharsets.UTF_8))
+                .toList());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String[] decode(String cursor, int expectedKeys) {
+        try {
+            var joined = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            var keys = joined.split(SEPARATOR, -1);
+            if (keys.length != expectedKeys) {
+                throw invalid(cursor);
+            }
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = NULL_KEY.equals(keys[i]) ? null : URLDecoder.decode(keys[i], StandardCharsets.UTF_8);
+            }
+            return keys;
+        } catch (IllegalArgumentException e) {
+            throw invalid(cursor);
+        }
+    }
+
+    static long decodeId(String cursor) {
+        try {
+            return Long.parseLong(decode(cursor, 1)[0]);
+        } catch (NumberFormatException e) {
+            throw invalid(cursor);
+        }
+    }
+
+    /**
+     * Builds a page from a query that fetched {@code limit + 1} rows, the extra row only tells whether there is a next page.
+     */
+    static <T> CursorPage<T> page(List<T> rows, int limit, Function<T, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return CursorPage.<T>builder().content(rows).build();
+        }
+        var content = rows.subList(0, limit);
+        return CursorPage.<T>builder()
+                .content(content)
+                .nextCursor(cursorOf.apply(content.getLast()))
+                .build();
+    }
+
+    static BadRequestException invalid(String cursor) {
+        return new BadRequestException("Invalid cursor: '" + cursor + "'");
+    }
+}
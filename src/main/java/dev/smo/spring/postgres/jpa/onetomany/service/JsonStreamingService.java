@@ -0,0 +1,23 @@
+package dev.smo.spring.postgres.jpa.onetomany.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * Writes list responses straight from the JDBC rows to a {@link JsonGenerator}, in the same format as the
+ * serialized {@code AuthorDTO} and {@code BookDTO} lists but without creating them.
+ */
+public interface JsonStreamingService {
+
+    /**
+     * Writes all authors ordered by id as a JSON array.
+     */
+    void writeAllAuthors(JsonGenerator generator) throws IOException;
+
+    /**
+     * Writes the books of an author ordered by id as a JSON array, an empty array for an unknown author.
+     */
+    void writeBooksOfAuthor(Long authorId, JsonGenerator generator) throws IOException;
+
+}
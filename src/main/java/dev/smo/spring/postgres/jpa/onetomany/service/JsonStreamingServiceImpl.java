@@ -0,0 +1,89 @@
+package dev.smo.spring.postgres.jpa.onetomany.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import dev.smo.spring.postgres.jpa.onetomany.datasource.ReadYourWrites;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+@Service
+@Timed(value = "app.service", histogram = true)
+public class JsonStreamingServiceImpl implements JsonStreamingService {
+
+    // same order as findAuthorDtos and findBookDtosByAuthorId, served by the primary key and book (author_id, id)
+    private static final String ALL_AUTHORS = "select id, first_name, last_name from author order by id";
+    private static final String BOOKS_OF_AUTHOR =
+            "select id, title, price, publish_date from book where author_id = ? order by id";
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JsonStreamingServiceImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // a cursor instead of reading the whole result into memory, PostgreSQL only uses it inside a transaction
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void writeAllAuthors(JsonGenerator generator) throws IOException {
+        generator.writeStartArray();
+        jdbcTemplate.query(ALL_AUTHORS, writing(rs -> {
+            generator.writeStartObject();
+            generator.writeNumberField("id", rs.getLong(1));
+            generator.writeStringField("firstName", rs.getString(2));
+            generator.writeStringField("lastName", rs.getString(3));
+            generator.writeEndObject();
+        }));
+        generator.writeEndArray();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void writeBooksOfAuthor(Long authorId, JsonGenerator generator) throws IOException {
+        generator.writeStartArray();
+        // the ETag of the response is the version of the author read from the primary, books from a replica that
+        // lags behind could be older than it
+        ReadYourWrites.onPrimary(() -> jdbcTemplate.query(BOOKS_OF_AUTHOR, writing(rs -> {
+            generator.writeStartObject();
+            generator.writeNumberField("id", rs.getLong(1));
+            generator.writeStringField("title", rs.getString(2));
+            // the text of numeric(38,2) and date columns already is the JSON of BigDecimal and LocalDate,
+            // neither is parsed into an object only to be formatted again
+            var price = rs.getString(3);
+            generator.writeFieldName("price");
+            if (price != null) {
+                generator.writeNumber(price);
+            } else {
+                generator.writeNull();
+            }
+            generator.writeStringField("publishDate", rs.getString(4));
+            generator.writeEndObject();
+        }), authorId));
+        generator.writeEndArray();
+    }
+
+    private interface RowWriter {
+
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+
+    private static RowCallbackHandler writing(RowWriter writer) {
+        return rs -> {
+            try {
+                writer.write(rs);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package dev.smo.spring.postgres.jpa.onetomany.service;
+
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.VersionedAuthorDTO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveAuthorService {
+
+    /**
+     * The author together with the version it was read at, for its ETag.
+     */
+    Mono<VersionedAuthorDTO> findVersionedById(Long id);
+
+    Flux<AuthorDTO> findAll();
+
+    Mono<AuthorDTO> save(AuthorDTO authorDTO);
+
+    /**
+     * Updates the names of an author and increments its version, empty if there is no such author.
+     *
+     * @param expectedVersion the version the client has seen, {@code null} to update any version
+     * @throws dev.smo.spring.postgres.jpa.onetomany.exception.PreconditionFailedException as error signal if the
+     *         author has another version
+     */
+    Mono<VersionedAuthorDTO> update(Long id, AuthorDTO authorDTO, Long expectedVersion);
+
+}
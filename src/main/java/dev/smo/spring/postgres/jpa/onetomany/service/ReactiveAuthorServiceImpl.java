@@ -0,0 +1,102 @@
+package dev.smo.spring.postgres.jpa.onetomany.service;
+
+import dev.smo.spring.postgres.jpa.onetomany.entities.Author;
+import dev.smo.spring.postgres.jpa.onetomany.exception.PreconditionFailedException;
+import dev.smo.spring.postgres.jpa.onetomany.mapper.AuthorMapper;
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.VersionedAuthorDTO;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking {@link AuthorService} on R2DBC, it reads and writes the same tables as the JPA entities.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveAuthorServiceImpl implements ReactiveAuthorService {
+
+    private final DatabaseClient databaseClient;
+    private final AuthorMapper authorMapper;
+
+    public ReactiveAuthorServiceImpl(ConnectionFactory connectionFactory, AuthorMapper authorMapper) {
+        this.databaseClient = DatabaseClient.create(connectionFactory);
+        this.authorMapper = authorMapper;
+    }
+
+    @Override
+    public Mono<VersionedAuthorDTO> findVersionedById(Long id) {
+        return databaseClient.sql("select id, first_name, last_name, version from author where id = :id")
+                .bind("id", id)
+                .map(ReactiveAuthorServiceImpl::toAuthor)
+                .one()
+                .map(this::toVersionedAuthorDTO);
+    }
+
+    @Override
+    public Flux<AuthorDTO> findAll() {
+        return databaseClient.sql("select id, first_name, last_name, version from author order by id")
+                .map(ReactiveAuthorServiceImpl::toAuthor)
+                .all()
+                .map(authorMapper::toAuthorDTO);
+    }
+
+    @Override
+    public Mono<AuthorDTO> save(AuthorDTO authorDTO) {
+        var author = authorMapper.toAuthor(authorDTO);
+        // every nextval reserves a block of 50 ids for the pooled JPA generator, taking its last id never collides with it
+        var spec = databaseClient.sql("insert into author (id, first_name, last_name, version) " +
+                "values (nextval('author_seq'), :firstName, :lastName, 0) returning id, first_name, last_name, version");
+        spec = author.getFirstName() != null ? spec.bind("firstName", author.getFirstName()) : spec.bindNull("firstName", String.class);
+        spec = author.getLastName() != null ? spec.bind("lastName", author.getLastName()) : spec.bindNull("lastName", String.class);
+        return spec.map(ReactiveAuthorServiceImpl::toAuthor)
+                .one()
+                .map(authorMapper::toAuthorDTO);
+    }
+
+    @Override
+    public Mono<VersionedAuthorDTO> update(Long id, AuthorDTO authorDTO, Long expectedVersion) {
+        // the version check is part of the update, like the optimistic lock of the JPA entity
+        var spec = databaseClient.sql("update author set first_name = :firstName, last_name = :lastName, version = version + 1 " +
+                "where id = :id" + (expectedVersion != null ? " and version = :version" : "") +
+                " returning id, first_name, last_name, version")
+                .bind("id", id);
+        spec = authorDTO.getFirstName() != null ? spec.bind("firstName", authorDTO.getFirstName()) : spec.bindNull("firstName", String.class);
+        spec = authorDTO.getLastName() != null ? spec.bind("lastName", authorDTO.getLastName()) : spec.bindNull("lastName", String.class);
+        if (expectedVersion != null) {
+            spec = spec.bind("version", expectedVersion);
+        }
+        return spec.map(ReactiveAuthorServiceImpl::toAuthor)
+                .one()
+                .map(this::toVersionedAuthorDTO)
+                .switchIfEmpty(Mono.defer(() -> expectedVersion != null ? modifiedIfExists(id) : Mono.empty()));
+    }
+
+    /**
+     * Tells a missing author from one whose version did not match after an update of no row.
+     */
+    private Mono<VersionedAuthorDTO> modifiedIfExists(Long id) {
+        return databaseClient.sql("select 1 from author where id = :id")
+                .bind("id", id)
+                .map(row -> true)
+                .one()
+                .flatMap(exists -> Mono.error(new PreconditionFailedException("Author with id: '" + id + "' was modified!")));
+    }
+
+    private VersionedAuthorDTO toVersionedAuthorDTO(Author author) {
+        return new VersionedAuthorDTO(authorMapper.toAuthorDTO(author), author.getVersion());
+    }
+
+    private static Author toAuthor(Readable row) {
+        return Author.builder()
+                .id(row.get("id", Long.class))
+                .firstName(row.get("first_name", String.class))
+                .lastName(row.get("last_name", String.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+}
@@ -0,0 +1,23 @@
+package dev.smo.spring.postgres.jpa.onetomany.service;
+
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveBookService {
+
+    /**
+     * Emits the books as they are read, the rows are fetched no faster than the subscriber requests them.
+     */
+    Flux<BookDTO> findAllBooksForAuthorWithId(Long authorId);
+
+    /**
+     * Adds a book to an author and increments the version of the author, empty if there is no such author.
+     *
+     * @param expectedVersion the version of the author the client has seen, {@code null} to add to any version
+     * @throws dev.smo.spring.postgres.jpa.onetomany.exception.PreconditionFailedException as error signal if the
+     *         author has another version
+     */
+    Mono<BookDTO> saveBookForAuthorWithId(BookDTO book, Long authorId, Long expectedVersion);
+
+}
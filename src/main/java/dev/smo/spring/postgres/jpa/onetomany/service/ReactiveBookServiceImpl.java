@@ -0,0 +1,115 @@
+package dev.smo.spring.postgres.jpa.onetomany.service;
+
+import dev.smo.spring.postgres.jpa.onetomany.entities.Book;
+import dev.smo.spring.postgres.jpa.onetomany.exception.PreconditionFailedException;
+import dev.smo.spring.postgres.jpa.onetomany.mapper.BookMapper;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorStatsRepository;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Non-blocking {@link BookService} on R2DBC, it reads and writes the same tables as the JPA entities.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveBookServiceImpl implements ReactiveBookService {
+
+    private static final int FETCH_SIZE = 256;
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final BookMapper bookMapper;
+    private final boolean statsSummaryTable;
+
+    public ReactiveBookServiceImpl(ConnectionFactory connectionFactory, BookMapper bookMapper,
+                                   @Value("${app.stats.summary-table.enabled:false}") boolean statsSummaryTable) {
+        this.databaseClient = DatabaseClient.create(connectionFactory);
+        // deliberately not a bean, a second transaction manager bean would replace the JPA one
+        this.transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+        this.bookMapper = bookMapper;
+        this.statsSummaryTable = statsSummaryTable;
+    }
+
+    @Override
+    public Flux<BookDTO> findAllBooksForAuthorWithId(Long authorId) {
+        return databaseClient.sql("select id, title, price, publish_date, version from book where author_id = :authorId order by id")
+                .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                .bind("authorId", authorId)
+                .map(ReactiveBookServiceImpl::toBook)
+                .all()
+                .map(bookMapper::toBookDTO);
+    }
+
+    @Override
+    public Mono<BookDTO> saveBookForAuthorWithId(BookDTO bookDTO, Long authorId, Long expectedVersion) {
+        var book = bookMapper.toBook(bookDTO);
+        var spec = databaseClient.sql("insert into book (id, title, price, publish_date, version, author_id) " +
+                        "values (nextval('book_seq'), :title, :price, :publishDate, 0, :authorId) " +
+                        "returning id, title, price, publish_date, version")
+                .bind("authorId", authorId);
+        spec = book.getTitle() != null ? spec.bind("title", book.getTitle()) : spec.bindNull("title", String.class);
+        spec = book.getPrice() != null ? spec.bind("price", book.getPrice()) : spec.bindNull("price", BigDecimal.class);
+        spec = book.getPublishDate() != null ? spec.bind("publishDate", book.getPublishDate()) : spec.bindNull("publishDate", LocalDate.class);
+        var insert = spec.map(ReactiveBookServiceImpl::toBook).one();
+
+        // the version increment doubles as existence and version check, there is no second-level cache to keep in
+        // sync here
+        var increment = databaseClient.sql("update author set version = version + 1 where id = :id" +
+                        (expectedVersion != null ? " and version = :version" : ""))
+                .bind("id", authorId);
+        if (expectedVersion != null) {
+            increment = increment.bind("version", expectedVersion);
+        }
+        return increment.fetch()
+                .rowsUpdated()
+                .flatMap(updated -> updated > 0 ? insert : modifiedIfExists(authorId, expectedVersion))
+                .flatMap(this::addToStats)
+                .map(bookMapper::toBookDTO)
+                .as(transactionalOperator::transactional);
+    }
+
+    private Mono<Book> modifiedIfExists(Long authorId, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return Mono.empty();
+        }
+        return databaseClient.sql("select 1 from author where id = :id")
+                .bind("id", authorId)
+                .map(row -> true)
+                .one()
+                .flatMap(exists -> Mono.error(new PreconditionFailedException("Author with id: '" + authorId + "' was modified!")));
+    }
+
+    private Mono<Book> addToStats(Book book) {
+        if (!statsSummaryTable) {
+            return Mono.just(book);
+        }
+        // only an existing summary is updated, the stats of an author without one are aggregated when they are read
+        return databaseClient.sql(AuthorStatsRepository.ADD_BOOK)
+                .bind("bookId", book.getId())
+                .fetch()
+                .rowsUpdated()
+                .thenReturn(book);
+    }
+
+    private static Book toBook(Readable row) {
+        return Book.builder()
+                .id(row.get("id", Long.class))
+                .title(row.get("title", String.class))
+                .price(row.get("price", BigDecimal.class))
+                .publishDate(row.get("publish_date", LocalDate.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+}
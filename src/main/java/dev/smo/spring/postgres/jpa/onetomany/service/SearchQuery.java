@@ -0,0 +1,65 @@
+package dev.smo.spring.postgres.jpa.onetomany.service;
+
+import dev.smo.spring.postgres.jpa.onetomany.exception.BadRequestException;
+import dev.smo.spring.postgres.jpa.onetomany.model.CursorPage;
+import dev.smo.spring.postgres.jpa.onetomany.repository.SearchHit;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * A search as the search queries of the repositories expect it: the trimmed text for the similarity match, a
+ * {@code tsquery} that matches every word as prefix and the position after the last hit of the previous page.
+ */
+record SearchQuery(String text, String prefixQuery, double afterScore, long afterId) {
+
+    static final int MAX_LENGTH = 100;
+
+    // only letters and digits end up in the tsquery, everything else would be tsquery syntax
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    static SearchQuery of(String query, String after) {
+        var text = query == null ? "" : query.strip();
+        if (text.length() < 2 || text.length() > MAX_LENGTH) {
+            throw new BadRequestException("Search query must have between 2 and " + MAX_LENGTH + " characters!");
+        }
+        var words = Arrays.stream(NON_WORD.split(text)).filter(word -> !word.isEmpty()).toList();
+        if (words.isEmpty()) {
+            throw new BadRequestException("Search query must contain a letter or digit!");
+        }
+        var prefixQuery = words.stream().map(word -> word + ":*").collect(Collectors.joining(" & "));
+        if (after == null) {
+            return new SearchQuery(text, prefixQuery, Double.POSITIVE_INFINITY, 0L);
+        }
+        var keys = Cursors.decode(after, 2);
+        if (keys[0] == null || keys[1] == null) {
+            throw Cursors.invalid(after);
+        }
+        try {
+            return new SearchQuery(text, prefixQuery, Double.parseDouble(keys[0]), Long.parseLong(keys[1]));
+        } catch (NumberFormatException e) {
+            throw Cursors.invalid(after);
+        }
+    }
+
+    /**
+     * Builds a page from {@code limit + 1} hits, loads the rows of the hits by their ids and keeps the order of the hits.
+     */
+    static <T> CursorPage<T> page(List<SearchHit> hits, int limit, Function<Collection<Long>, List<T>> findAllByIds,
+                                  Function<T, Long> idOf) {
+        var page = Cursors.page(hits, limit, hit -> Cursors.encode(hit.getScore(), hit.getId()));
+        var ids = page.getContent().stream().map(SearchHit::getId).toList();
+        Map<Long, T> byId = ids.isEmpty() ? Map.of() : findAllByIds.apply(ids).stream()
+                .collect(Collectors.toMap(idOf, Function.identity()));
+        return CursorPage.<T>builder()
+                .content(ids.stream().map(byId::get).filter(Objects::nonNull).toList())
+                .nextCursor(page.getNextCursor())
+                .build();
+    }
+}
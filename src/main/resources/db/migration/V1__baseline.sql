@@ -0,0 +1,25 @@
+-- schema of the Author and Book entities as Hibernate generated it with ddl-auto, the increments of the sequences
+-- match the allocationSize of the pooled id generators
+create sequence author_seq start with 1 increment by 50;
+create sequence book_seq start with 1 increment by 50;
+
+create table author
+(
+    id         bigint not null,
+    first_name varchar(255),
+    last_name  varchar(255),
+    version    bigint,
+    primary key (id)
+);
+
+create table book
+(
+    id           bigint not null,
+    title        varchar(255),
+    price        numeric(38, 2),
+    publish_date date,
+    version      bigint,
+    author_id    bigint,
+    primary key (id),
+    constraint fk_book_author foreign key (author_id) references author
+);
@@ -0,0 +1,13 @@
+-- indexes of the search queries in AuthorRepository and BookRepository, the indexed expressions must stay identical
+-- to the expressions in the queries, otherwise PostgreSQL cannot use them
+create extension if not exists pg_trgm;
+
+-- word and word prefix search, 'simple' neither stems nor drops stop words, so every prefix of a word matches
+create index book_title_fts_idx on book using gin (to_tsvector('simple', title));
+-- similarity search, finds titles with typos or words in another form
+create index book_title_trgm_idx on book using gin (title gin_trgm_ops);
+
+create index author_name_fts_idx on author
+    using gin (to_tsvector('simple', coalesce(first_name, '') || ' ' || coalesce(last_name, '')));
+create index author_name_trgm_idx on author
+    using gin ((coalesce(first_name, '') || ' ' || coalesce(last_name, '')) gin_trgm_ops);
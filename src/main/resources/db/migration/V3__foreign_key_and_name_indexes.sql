@@ -0,0 +1,12 @@
+-- built concurrently, so the migration does not block writes on a populated table, Flyway runs the script
+-- outside of a transaction since create index concurrently cannot run inside one
+
+-- the foreign key is not indexed by PostgreSQL, Author.books and the books by author queries select by author_id
+-- ordered by id, the second column serves the order without a sort
+create index concurrently book_author_id_idx on book (author_id, id);
+
+-- AuthorRepository.findByFirstName and deleteByFirstName
+create index concurrently author_first_name_idx on author (first_name);
+
+-- BookRepository.findByTitle
+create index concurrently book_title_idx on book (title);
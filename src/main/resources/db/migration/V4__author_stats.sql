@@ -0,0 +1,15 @@
+-- summary of the books of every author for the stats endpoints, see AuthorStatsRepository, a row is created with the
+-- first book added through the API while app.stats.summary-table.enabled=true and deleted together with its author
+create table author_stats
+(
+    author_id          bigint         not null,
+    book_count         bigint         not null,
+    price_count        bigint         not null,
+    price_sum          numeric(38, 2) not null,
+    min_price          numeric(38, 2),
+    max_price          numeric(38, 2),
+    first_publish_date date,
+    last_publish_date  date,
+    primary key (author_id),
+    constraint fk_author_stats_author foreign key (author_id) references author on delete cascade
+);
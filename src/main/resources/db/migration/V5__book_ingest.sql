@@ -0,0 +1,15 @@
+-- outcome of every book submitted with Prefer: respond-async, see BookIngestStore, written in the same transaction as
+-- the book, so a journal batch written again after a crash skips the books it already contains
+create table book_ingest
+(
+    tracking_id uuid        not null,
+    author_id   bigint      not null,
+    book_id     bigint,
+    status      varchar(16) not null,
+    error       varchar(255),
+    applied_at  timestamptz not null,
+    primary key (tracking_id)
+);
+
+-- for deleting old rows, e.g. delete from book_ingest where applied_at < now() - interval '7 days'
+create index book_ingest_applied_at_idx on book_ingest (applied_at);
@@ -0,0 +1,8 @@
+-- built concurrently like the indexes of V3, so Flyway runs the script outside of a transaction
+
+-- BookRepository.findBookDtoPage walks the books of an author in the order of the sort key and id from the position
+-- of the cursor, the id as last column serves the tie-breaker without a sort, also when read backwards for
+-- descending pages, and a range filter on the sort key narrows the scanned range of the index
+create index concurrently book_author_publish_date_idx on book (author_id, publish_date, id);
+create index concurrently book_author_price_idx on book (author_id, price, id);
+create index concurrently book_author_title_idx on book (author_id, title, id);
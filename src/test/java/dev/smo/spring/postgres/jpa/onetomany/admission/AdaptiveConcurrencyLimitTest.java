@@ -0,0 +1,112 @@
+package dev.smo.spring.postgres.jpa.onetomany.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final AdmissionControlProperties properties = new AdmissionControlProperties();
+
+    @Test
+    void rejectsRequestsAboveLimit() {
+        properties.setInitialLimit(2);
+        var limit = new AdaptiveConcurrencyLimit(properties);
+
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isFalse();
+
+        limit.release(FAST, false);
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void increasesLimitWhileLatencyIsStableAndLimitIsUsed() {
+        properties.setInitialLimit(4);
+        var limit = new AdaptiveConcurrencyLimit(properties);
+
+        for (int i = 0; i < 100; i++) {
+            fill(limit);
+            drain(limit, FAST, false);
+        }
+
+        assertThat(limit.getLimit()).isGreaterThan(4);
+    }
+
+    @Test
+    void keepsLimitWhileItIsNotUsed() {
+        properties.setInitialLimit(4);
+        var limit = new AdaptiveConcurrencyLimit(properties);
+
+        for (int i = 0; i < 100; i++) {
+            limit.tryAcquire();
+            limit.release(FAST, false);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void decreasesLimitWhenLatencyGrows() {
+        properties.setInitialLimit(20);
+        var limit = new AdaptiveConcurrencyLimit(properties);
+        for (int i = 0; i < 10; i++) {
+            fill(limit);
+            drain(limit, FAST, false);
+        }
+        var stable = limit.getLimit();
+
+        for (int i = 0; i < 10; i++) {
+            fill(limit);
+            drain(limit, SLOW, false);
+        }
+
+        assertThat(limit.getLimit()).isLessThan(stable);
+    }
+
+    @Test
+    void decreasesLimitOnServerErrorsButNotBelowMinimum() {
+        properties.setInitialLimit(10);
+        properties.setMinLimit(2);
+        var limit = new AdaptiveConcurrencyLimit(properties);
+
+        for (int i = 0; i < 100; i++) {
+            fill(limit);
+            drain(limit, FAST, true);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void releaseWithoutLatencyOnlyFreesPermit() {
+        properties.setInitialLimit(1);
+        var limit = new AdaptiveConcurrencyLimit(properties);
+
+        assertThat(limit.tryAcquire()).isTrue();
+        limit.release();
+
+        assertThat(limit.getInFlight()).isZero();
+        assertThat(limit.getLimit()).isEqualTo(1);
+        assertThat(limit.tryAcquire()).isTrue();
+    }
+
+    private static void fill(AdaptiveConcurrencyLimit limit) {
+        while (limit.tryAcquire()) {
+            // acquire every permit
+        }
+    }
+
+    private static void drain(AdaptiveConcurrencyLimit limit, long latencyNanos, boolean failed) {
+        while (limit.getInFlight() > 0) {
+            limit.release(latencyNanos, failed);
+        }
+    }
+}
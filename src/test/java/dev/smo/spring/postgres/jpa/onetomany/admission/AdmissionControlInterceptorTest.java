@@ -0,0 +1,80 @@
+package dev.smo.spring.postgres.jpa.onetomany.admission;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dev.smo.spring.postgres.jpa.onetomany.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdmissionControlInterceptorTest {
+
+    private final AdmissionControlProperties properties = new AdmissionControlProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Test
+    void rejectsRequestsAboveGlobalLimitAcrossEndpoints() {
+        var interceptor = new AdmissionControlInterceptor(properties, meterRegistry, 2);
+
+        assertThat(interceptor.preHandle(request("/api/authors/{id}"), response, null)).isTrue();
+        assertThat(interceptor.preHandle(request("/api/authors/{id}/books"), response, null)).isTrue();
+
+        assertThatThrownBy(() -> interceptor.preHandle(request("/api/authors"), response, null))
+                .isInstanceOf(ServiceUnavailableException.class);
+        assertThat(meterRegistry.get("app.admission.global.in.flight").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void releasesGlobalPermitAfterCompletion() {
+        var interceptor = new AdmissionControlInterceptor(properties, meterRegistry, 1);
+        var first = request("/api/authors/{id}");
+
+        interceptor.preHandle(first, response, null);
+        interceptor.afterCompletion(first, response, null, null);
+
+        assertThat(interceptor.preHandle(request("/api/authors"), response, null)).isTrue();
+    }
+
+    @Test
+    void keepsPermitsOfStreamedResponseUntilAsyncCompletion() {
+        var interceptor = new AdmissionControlInterceptor(properties, meterRegistry, 1);
+        var streamed = request("/api/authors/export");
+
+        interceptor.preHandle(streamed, response, null);
+        var asyncContext = streamed.startAsync();
+        interceptor.afterConcurrentHandlingStarted(streamed, response, null);
+
+        assertThatThrownBy(() -> interceptor.preHandle(request("/api/authors"), response, null))
+                .isInstanceOf(ServiceUnavailableException.class);
+        assertThat(meterRegistry.get("app.admission.in.flight").tag("uri", "/api/authors/export").gauge().value())
+                .isEqualTo(1);
+
+        asyncContext.complete();
+
+        assertThat(interceptor.preHandle(request("/api/authors"), response, null)).isTrue();
+        assertThat(meterRegistry.get("app.admission.in.flight").tag("uri", "/api/authors/export").gauge().value())
+                .isZero();
+    }
+
+    @Test
+    void derivesGlobalLimitFromPoolSize() throws Exception {
+        try (var dataSource = new HikariDataSource()) {
+            dataSource.setMaximumPoolSize(5);
+            properties.setRequestsPerConnection(4);
+
+            assertThat(AdmissionControlConfiguration.globalLimit(properties, dataSource)).isEqualTo(20);
+        }
+    }
+
+    private static MockHttpServletRequest request(String pattern) {
+        var request = new MockHttpServletRequest("GET", pattern);
+        request.setAsyncSupported(true);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+}
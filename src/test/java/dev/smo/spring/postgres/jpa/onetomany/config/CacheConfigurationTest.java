@@ -0,0 +1,87 @@
+package dev.smo.spring.postgres.jpa.onetomany.config;
+
+import dev.smo.spring.postgres.jpa.onetomany.TestcontainersConfiguration;
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import dev.smo.spring.postgres.jpa.onetomany.service.AuthorService;
+import dev.smo.spring.postgres.jpa.onetomany.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "app.db.init.enabled=false")
+class CacheConfigurationTest {
+
+    @Autowired
+    AuthorService authorService;
+
+    @Autowired
+    BookService bookService;
+
+    @Test
+    void findVersionedByIdIsServedFromCache() {
+        var saved = authorService.save(AuthorDTO.builder().firstName("firstname").lastName("lastname").build());
+
+        var first = authorService.findVersionedById(saved.getId());
+        var second = authorService.findVersionedById(saved.getId());
+
+        assertThat(first).isPresent();
+        assertThat(first.get().author()).isEqualTo(saved);
+        assertThat(second).containsSame(first.get());
+    }
+
+    @Test
+    void updateCachesAuthorWithNewVersion() {
+        var saved = authorService.save(AuthorDTO.builder().firstName("firstname").lastName("lastname").build());
+        var version = authorService.findVersionedById(saved.getId()).orElseThrow().version();
+
+        var updated = authorService.update(saved.getId(),
+                AuthorDTO.builder().firstName("changed").lastName("lastname").build(), version);
+
+        assertThat(authorService.findVersionedById(saved.getId())).isEqualTo(updated);
+        assertThat(updated.orElseThrow().version()).isEqualTo(version + 1);
+        assertThat(updated.orElseThrow().author().getFirstName()).isEqualTo("changed");
+    }
+
+    @Test
+    void savingBookEvictsCachedAuthorWithItsVersion() {
+        var saved = authorService.save(AuthorDTO.builder().firstName("firstname").lastName("lastname").build());
+        var version = authorService.findVersionedById(saved.getId()).orElseThrow().version();
+
+        bookService.saveBookForAuthorWithId(BookDTO.builder().title("book 1").build(), saved.getId(), version);
+
+        assertThat(authorService.findVersionedById(saved.getId()).orElseThrow().version()).isEqualTo(version + 1);
+    }
+
+    @Test
+    void savingBookEvictsCachedBooksOfAuthorWithTheirVersion() {
+        var author = authorService.save(AuthorDTO.builder().firstName("firstname").lastName("lastname").build());
+        var cached = bookService.findVersionedBooksForAuthorWithId(author.getId()).orElseThrow();
+        assertThat(cached.books()).isEmpty();
+        assertThat(bookService.findVersionedBooksForAuthorWithId(author.getId())).containsSame(cached);
+
+        bookService.saveBookForAuthorWithId(BookDTO.builder()
+                .title("book 1")
+                .price(BigDecimal.valueOf(10.00))
+                .publishDate(LocalDate.of(2024, 1, 10))
+                .build(), author.getId(), null);
+
+        var reloaded = bookService.findVersionedBooksForAuthorWithId(author.getId()).orElseThrow();
+        assertThat(reloaded.version()).isEqualTo(cached.version() + 1);
+        assertThat(reloaded.books())
+                .extracting(BookDTO::getTitle)
+                .containsExactly("book 1");
+    }
+
+    @Test
+    void findVersionedBooksOfUnknownAuthorIsEmpty() {
+        assertThat(bookService.findVersionedBooksForAuthorWithId(Long.MAX_VALUE)).isEmpty();
+    }
+}
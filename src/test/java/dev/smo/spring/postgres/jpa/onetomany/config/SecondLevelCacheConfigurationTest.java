@@ -0,0 +1,125 @@
+package dev.smo.spring.postgres.jpa.onetomany.config;
+
+import dev.smo.spring.postgres.jpa.onetomany.TestcontainersConfiguration;
+import dev.smo.spring.postgres.jpa.onetomany.entities.Author;
+import dev.smo.spring.postgres.jpa.onetomany.entities.Book;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorRepository;
+import dev.smo.spring.postgres.jpa.onetomany.repository.BookRepository;
+import dev.smo.spring.postgres.jpa.onetomany.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {"app.db.init.enabled=false", "app.cache.second-level.enabled=true"})
+class SecondLevelCacheConfigurationTest {
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+    private Long authorId;
+
+    @BeforeEach
+    void setUp() {
+        Author a1 = Author.builder()
+                .firstName("firstname")
+                .lastName("lastname")
+                .build();
+        a1.addBook(Book.builder()
+                .title("book 1")
+                .price(BigDecimal.valueOf(10.00))
+                .publishDate(LocalDate.of(2024, 1, 10))
+                .build());
+        authorId = authorRepository.save(a1).getId();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void authorIsReadFromSecondLevelCache() {
+        authorRepository.findById(authorId);
+        authorRepository.findById(authorId);
+
+        assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+        assertThat(statistics.getEntityLoadCount()).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void cacheHitsArePublishedAsMetrics() {
+        authorRepository.findById(authorId);
+        authorRepository.findById(authorId);
+
+        assertThat(meterRegistry.get("hibernate.second.level.cache.requests")
+                .tag("region", "author")
+                .tag("result", "hit")
+                .functionCounter().count()).isPositive();
+    }
+
+    @Test
+    void addingBookEvictsCachedBooksCollectionAndQuery() {
+        assertThat(countBooksOfAuthor()).isEqualTo(1);
+        assertThat(bookRepository.findBookDtosByAuthorId(authorId)).hasSize(1);
+
+        bookService.saveBookForAuthorWithId(BookDTO.builder()
+                .title("book 2")
+                .price(BigDecimal.valueOf(20.00))
+                .publishDate(LocalDate.of(2024, 2, 20))
+                .build(), authorId, null);
+
+        assertThat(countBooksOfAuthor()).isEqualTo(2);
+        assertThat(bookRepository.findBookDtosByAuthorId(authorId)).hasSize(2);
+    }
+
+    @Test
+    void addingBookKeepsOtherAuthorsInSecondLevelCache() {
+        var other = authorRepository.save(Author.builder().firstName("other").lastName("author").build()).getId();
+        authorRepository.findById(other);
+        statistics.clear();
+
+        bookService.saveBookForAuthorWithId(BookDTO.builder()
+                .title("book 2")
+                .price(BigDecimal.valueOf(20.00))
+                .publishDate(LocalDate.of(2024, 2, 20))
+                .build(), authorId, null);
+        authorRepository.findById(other);
+        authorRepository.findById(authorId);
+
+        // only the locking select of the author reads the table, both authors are still cached afterwards
+        assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThanOrEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+    }
+
+    private Integer countBooksOfAuthor() {
+        return transactionTemplate.execute(status -> authorRepository.findById(authorId).orElseThrow().getBooks().size());
+    }
+}
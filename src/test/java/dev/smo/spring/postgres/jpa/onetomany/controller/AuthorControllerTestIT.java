@@ -1,13 +1,18 @@
 package dev.smo.spring.postgres.jpa.onetomany.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import dev.smo.spring.postgres.jpa.onetomany.TestcontainersConfiguration;
 import dev.smo.spring.postgres.jpa.onetomany.entities.Author;
 import dev.smo.spring.postgres.jpa.onetomany.entities.Book;
 import dev.smo.spring.postgres.jpa.onetomany.model.AuthorDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorWithBooksDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
 import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorRepository;
 import dev.smo.spring.postgres.jpa.onetomany.repository.BookRepository;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
 import io.restassured.response.Response;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
@@ -22,6 +27,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.test.context.TestPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -36,9 +42,12 @@ import static org.hamcrest.Matchers.*;
 @Import(TestcontainersConfiguration.class)
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
-@TestPropertySource(properties = {"spring.jpa.hibernate.ddl-auto=create-drop", "app.db.init.enabled=false"})
+@TestPropertySource(properties = {"app.db.init.enabled=false", "app.query-budget.mode=fail"})
 class AuthorControllerTestIT {
 
+    private static final String CBOR = "application/cbor";
+    private static final ObjectMapper CBOR_MAPPER = CBORMapper.builder().findAndAddModules().build();
+
     @Autowired
     PostgreSQLContainer<?> postgres;
 
@@ -123,6 +132,163 @@ class AuthorControllerTestIT {
                 .body("lastName", equalTo(author1.getLastName()));
     }
 
+    @Test
+    void getAuthorWithIfNoneMatch() {
+        String eTag = given()
+                .contentType(ContentType.JSON)
+        .when()
+                .pathParam("id", author1.getId())
+                .get("/api/authors/{id}")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+                .header("ETag", notNullValue())
+        .extract().header("ETag");
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("If-None-Match", eTag)
+        .when()
+                .pathParam("id", author1.getId())
+                .get("/api/authors/{id}")
+        .then()
+                .statusCode(HttpStatus.NOT_MODIFIED.value())
+                .header("ETag", equalTo(eTag));
+    }
+
+    @Test
+    void getAuthorAsCborWithItsOwnETag() {
+        String eTag = given()
+                .accept(ContentType.JSON)
+        .when()
+                .pathParam("id", author1.getId())
+                .get("/api/authors/{id}")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+                .header("Vary", containsString("Accept"))
+        .extract().header("ETag");
+
+        // the JSON the client holds is no valid CBOR body
+        String cborETag = given()
+                .accept(CBOR)
+                .header("If-None-Match", eTag)
+        .when()
+                .pathParam("id", author1.getId())
+                .get("/api/authors/{id}")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+                .header("ETag", not(equalTo(eTag)))
+                .header("Vary", containsString("Accept"))
+        .extract().header("ETag");
+
+        given()
+                .accept(CBOR)
+                .header("If-None-Match", cborETag)
+        .when()
+                .pathParam("id", author1.getId())
+                .get("/api/authors/{id}")
+        .then()
+                .statusCode(HttpStatus.NOT_MODIFIED.value())
+                .header("ETag", equalTo(cborETag));
+    }
+
+    @Test
+    void getBooksForAuthorWithIfNoneMatchAfterNewBook() {
+        String eTag = given()
+                .contentType(ContentType.JSON)
+        .when()
+                .pathParam("id", author1.getId())
+                .get("/api/authors/{id}/books")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+        .extract().header("ETag");
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("If-None-Match", eTag)
+        .when()
+                .pathParam("id", author1.getId())
+                .get("/api/authors/{id}/books")
+        .then()
+                .statusCode(HttpStatus.NOT_MODIFIED.value());
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("If-Match", eTag)
+                .pathParam("id", author1.getId())
+                .body(BookDTO.builder().title("Book 1.2 book title").price(BigDecimal.valueOf(12.12)).publishDate(LocalDate.of(2024, 12, 12)).build())
+        .when()
+                .post("/api/authors/{id}/books")
+        .then()
+                .statusCode(HttpStatus.CREATED.value());
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("If-None-Match", eTag)
+        .when()
+                .pathParam("id", author1.getId())
+                .get("/api/authors/{id}/books")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+                .header("ETag", not(equalTo(eTag)))
+                .body("", hasSize(2));
+
+        // the ETag is outdated now
+        given()
+                .contentType(ContentType.JSON)
+                .header("If-Match", eTag)
+                .pathParam("id", author1.getId())
+                .body(BookDTO.builder().title("Book 1.3 book title").price(BigDecimal.valueOf(13.13)).publishDate(LocalDate.of(2024, 12, 13)).build())
+        .when()
+                .post("/api/authors/{id}/books")
+        .then()
+                .statusCode(HttpStatus.PRECONDITION_FAILED.value());
+    }
+
+    @Test
+    void updateAuthorWithIfMatch() {
+        String eTag = given()
+                .contentType(ContentType.JSON)
+        .when()
+                .pathParam("id", author1.getId())
+                .get("/api/authors/{id}")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+        .extract().header("ETag");
+
+        String newETag = given()
+                .contentType(ContentType.JSON)
+                .header("If-Match", eTag)
+                .pathParam("id", author1.getId())
+                .body(AuthorDTO.builder().firstName("Updated first name").lastName("Updated last name").build())
+        .when()
+                .put("/api/authors/{id}")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("firstName", equalTo("Updated first name"))
+                .header("ETag", not(equalTo(eTag)))
+        .extract().header("ETag");
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("If-Match", eTag)
+                .pathParam("id", author1.getId())
+                .body(AuthorDTO.builder().firstName("Lost first name").lastName("Lost last name").build())
+        .when()
+                .put("/api/authors/{id}")
+        .then()
+                .statusCode(HttpStatus.PRECONDITION_FAILED.value());
+
+        given()
+                .contentType(ContentType.JSON)
+        .when()
+                .pathParam("id", author1.getId())
+                .get("/api/authors/{id}")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+                .header("ETag", equalTo(newETag))
+                .body("firstName", equalTo("Updated first name"));
+    }
+
     @Test
     void getAuthorWithNonExistingId() {
         long id = 0L;
@@ -147,6 +313,258 @@ class AuthorControllerTestIT {
                 .body(".", hasSize(3));
     }
 
+    @Test
+    void getAllAuthorsAfterCreatingAuthor() {
+        given()
+        .when()
+                .get("/api/authors")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+                .body(".", hasSize(3));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(AuthorDTO.builder().firstName("Author 4 first name").lastName("Author 4 last name").build())
+        .when()
+                .post("/api/authors")
+        .then()
+                .statusCode(HttpStatus.CREATED.value());
+
+        given()
+        .when()
+                .get("/api/authors")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+                .contentType(ContentType.JSON)
+                .body(".", hasSize(4))
+                .body("firstName", hasItem("Author 4 first name"));
+    }
+
+    @Test
+    void getAuthorsPage() {
+        String nextCursor = given()
+                .contentType(ContentType.JSON)
+        .when()
+                .queryParam("limit", 2)
+                .get("/api/authors")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+                .contentType(ContentType.JSON)
+                .body("content", hasSize(2))
+                .body("content[0].id", equalTo(author1.getId().intValue()))
+                .body("nextCursor", notNullValue())
+        .extract().path("nextCursor");
+
+        given()
+                .contentType(ContentType.JSON)
+        .when()
+                .queryParam("after", nextCursor)
+                .queryParam("limit", 2)
+                .get("/api/authors")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("content", hasSize(1))
+                .body("content[0].firstName", equalTo("Author 3 first name"))
+                .body("nextCursor", nullValue());
+    }
+
+    @Test
+    void getAuthorsPageWithBooks() {
+        String nextCursor = given()
+                .contentType(ContentType.JSON)
+        .when()
+                .queryParam("include", "books")
+                .queryParam("limit", 2)
+                .get("/api/authors")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("content", hasSize(2))
+                .body("content[0].id", equalTo(author1.getId().intValue()))
+                .body("content[0].books", hasSize(1))
+                .body("content[0].books[0].title", equalTo(books1.getTitle()))
+                .body("content[1].books[0].title", equalTo("Book 2 book title"))
+        .extract().path("nextCursor");
+
+        given()
+                .contentType(ContentType.JSON)
+        .when()
+                .queryParam("include", "books")
+                .queryParam("after", nextCursor)
+                .get("/api/authors")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("content", hasSize(1))
+                .body("content[0].books[0].title", equalTo("Book 3 book title"))
+                .body("nextCursor", nullValue());
+
+        given()
+                .contentType(ContentType.JSON)
+        .when()
+                .queryParam("include", "reviews")
+                .get("/api/authors")
+        .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @Test
+    void getAuthorsBatch() {
+        var author3 = authorRepository.findByFirstName("Author 3 first name").getFirst();
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(java.util.List.of(author3.getId(), 0L, author1.getId(), author3.getId()))
+        .when()
+                .post("/api/authors/batch")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("", hasSize(2))
+                .body("[0].id", equalTo(author3.getId().intValue()))
+                .body("[0].firstName", equalTo("Author 3 first name"))
+                .body("[0]", not(hasKey("books")))
+                .body("[1].id", equalTo(author1.getId().intValue()));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(java.util.List.of(author1.getId(), author3.getId()))
+        .when()
+                .queryParam("include", "books")
+                .post("/api/authors/batch")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("", hasSize(2))
+                .body("[0].books", hasSize(1))
+                .body("[0].books[0].title", equalTo(books1.getTitle()))
+                .body("[1].books[0].title", equalTo("Book 3 book title"));
+    }
+
+    @Test
+    void getAuthorsBatchWithInvalidIdsOrInclude() {
+        given()
+                .contentType(ContentType.JSON)
+                .body(java.util.List.of())
+        .when()
+                .post("/api/authors/batch")
+        .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(java.util.stream.LongStream.rangeClosed(1, 101).boxed().toList())
+        .when()
+                .post("/api/authors/batch")
+        .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(java.util.List.of(author1.getId()))
+        .when()
+                .queryParam("include", "reviews")
+                .post("/api/authors/batch")
+        .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @Test
+    void getAuthorsPageWithInvalidCursorOrLimit() {
+        given()
+                .contentType(ContentType.JSON)
+        .when()
+                .queryParam("after", "not a cursor")
+                .queryParam("limit", 2)
+                .get("/api/authors")
+        .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+
+        given()
+                .contentType(ContentType.JSON)
+        .when()
+                .queryParam("limit", 0)
+                .get("/api/authors")
+        .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @Test
+    void searchAuthors() {
+        given()
+                .contentType(ContentType.JSON)
+        .when()
+                .queryParam("q", "author 2")
+                .get("/api/authors/search")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+                .contentType(ContentType.JSON)
+                .body("content[0].firstName", equalTo("Author 2 first name"))
+                .body("nextCursor", nullValue());
+
+        given()
+                .contentType(ContentType.JSON)
+        .when()
+                .queryParam("q", "?!")
+                .get("/api/authors/search")
+        .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @Test
+    void getAuthorStats() {
+        given()
+                .config(RestAssured.config().jsonConfig(jsonConfig().numberReturnType(BIG_DECIMAL)))
+                .contentType(ContentType.JSON)
+        .when()
+                .pathParam("id", author1.getId().toString())
+                .get("/api/authors/{id}/stats")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("authorId", equalTo(author1.getId().intValue()))
+                .body("bookCount", equalTo(1))
+                .body("avgPrice", comparesEqualTo(BigDecimal.valueOf(11.00)))
+                .body("firstPublishDate", equalTo("2024-01-11"));
+
+        given()
+                .contentType(ContentType.JSON)
+        .when()
+                .pathParam("id", "999999")
+                .get("/api/authors/{id}/stats")
+        .then()
+                .statusCode(HttpStatus.NOT_FOUND.value());
+    }
+
+    @Test
+    void getAuthorStatsPage() {
+        given()
+                .contentType(ContentType.JSON)
+        .when()
+                .queryParam("limit", 2)
+                .get("/api/authors/stats")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("content", hasSize(2))
+                .body("content[0].authorId", equalTo(author1.getId().intValue()))
+                .body("content[0].bookCount", equalTo(1))
+                .body("nextCursor", notNullValue());
+    }
+
+    @Test
+    void exportAuthorsWithBooks() {
+        String body = given()
+                .accept("application/x-ndjson")
+        .when()
+                .get("/api/authors/export")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+                .contentType("application/x-ndjson")
+        .extract().asString();
+
+        var lines = body.lines().toList();
+        assertThat(lines).hasSize(3);
+        var firstAuthor = JsonPath.from(lines.getFirst());
+        assertThat(firstAuthor.getLong("id")).isEqualTo(author1.getId());
+        assertThat(firstAuthor.getList("books")).hasSize(1);
+        assertThat(firstAuthor.getString("books[0].title")).isEqualTo(books1.getTitle());
+    }
+
     @Test
     void getBooksForAuthorWithId() {
         Response response = given()//Returning floats and doubles as BigDecimal
@@ -166,6 +584,50 @@ class AuthorControllerTestIT {
         log.info(response.asString());
     }
 
+    @Test
+    void getBooksForAuthorWithIdAsCbor() throws IOException {
+        byte[] body = given()
+                .accept(CBOR)
+                .when()
+                    .pathParam("id", author1.getId().toString())
+                    .get("/api/authors/{id}/books")
+                .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .contentType(CBOR)
+                .extract().asByteArray();
+
+        var books = CBOR_MAPPER.readValue(body, BookDTO[].class);
+        assertThat(books).hasSize(1);
+        assertThat(books[0].getTitle()).isEqualTo(books1.getTitle());
+        assertThat(books[0].getPrice()).isEqualByComparingTo(books1.getPrice());
+        assertThat(books[0].getPublishDate()).isEqualTo(books1.getPublishDate());
+    }
+
+    @Test
+    void createBookForAuthorWithIdFromCbor() throws IOException {
+        var newBook = BookDTO.builder()
+                .title("Book 1.2 book title")
+                .price(BigDecimal.valueOf(11.12))
+                .publishDate(LocalDate.of(2024, 12, 12))
+                .build();
+
+        byte[] body = given()
+                .contentType(CBOR)
+                .accept(CBOR)
+                .body(CBOR_MAPPER.writeValueAsBytes(newBook))
+                .when()
+                    .pathParam("id", author1.getId().toString())
+                    .post("/api/authors/{id}/books")
+                .then()
+                    .statusCode(HttpStatus.CREATED.value())
+                    .contentType(CBOR)
+                .extract().asByteArray();
+
+        var created = CBOR_MAPPER.readValue(body, BookDTO.class);
+        assertThat(bookRepository.findById(created.getId()))
+                .hasValueSatisfying(book -> assertThat(book.getPrice()).isEqualByComparingTo(newBook.getPrice()));
+    }
+
     @Test
     void createAuthor() {
         var newAuthor = AuthorDTO.builder().firstName("Author 1 created first name").lastName("Author 1 created last name").build();
@@ -249,4 +711,84 @@ class AuthorControllerTestIT {
                     .statusCode(HttpStatus.NOT_FOUND.value());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void importAuthors() {
+        var authors = java.util.stream.IntStream.range(0, 120)
+                .mapToObj(i -> AuthorWithBooksDTO.builder()
+                        .firstName("Imported " + i)
+                        .lastName("Author")
+                        .books(java.util.List.of(
+                                BookDTO.builder().title("Imported book " + i + ".1").price(BigDecimal.valueOf(1.50)).publishDate(LocalDate.of(2024, 1, 1)).build(),
+                                BookDTO.builder().title("Imported book " + i + ".2").price(BigDecimal.valueOf(2.50)).publishDate(LocalDate.of(2024, 2, 1)).build()))
+                        .build())
+                .toList();
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(authors)
+                .when()
+                    .post("/api/authors/bulk")
+                .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("authors", equalTo(120))
+                    .body("books", equalTo(240));
+
+        assertThat(authorRepository.count()).isEqualTo(123);
+        assertThat(bookRepository.count()).isEqualTo(243);
+        assertThat(authorRepository.findByFirstName("Imported 119").getFirst().getBooks()).hasSize(2);
+    }
+
+    @Test
+    void importAuthorsFromStream() {
+        var body = """
+                {"firstName":"Streamed 1","lastName":"Author","books":[{"title":"Streamed book 1","price":10.00,"publishDate":"2024-01-01"}]}
+                {"firstName":"Streamed 2","lastName":"Author","books":[]}
+                """;
+
+        given()
+                .contentType("application/x-ndjson")
+                .body(body)
+                .when()
+                    .post("/api/authors/bulk")
+                .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("authors", equalTo(2))
+                    .body("books", equalTo(1));
+
+        assertThat(authorRepository.findByFirstName("Streamed 1").getFirst().getBooks()).hasSize(1);
+    }
+
+    @Test
+    void importAuthorsFromStreamWithMalformedLine() {
+        var body = """
+                {"firstName":"Streamed 1","lastName":"Author","books":[]}
+                {"firstName":"Streamed 2","lastName":
+                """;
+
+        given()
+                .contentType("application/x-ndjson")
+                .body(body)
+                .when()
+                    .post("/api/authors/bulk")
+                .then()
+                    .statusCode(HttpStatus.BAD_REQUEST.value());
+
+        assertThat(authorRepository.findByFirstName("Streamed 1")).isEmpty();
+    }
+
+    @Test
+    void importAuthorsWithIdSet() {
+        var authors = java.util.List.of(AuthorWithBooksDTO.builder().id(1L).firstName("first").lastName("last").build());
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(authors)
+                .when()
+                    .post("/api/authors/bulk")
+                .then()
+                    .statusCode(HttpStatus.BAD_REQUEST.value());
+
+        assertThat(authorRepository.count()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,124 @@
+package dev.smo.spring.postgres.jpa.onetomany.controller;
+
+import dev.smo.spring.postgres.jpa.onetomany.TestcontainersConfiguration;
+import dev.smo.spring.postgres.jpa.onetomany.entities.Author;
+import dev.smo.spring.postgres.jpa.onetomany.entities.Book;
+import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorRepository;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import jakarta.annotation.PostConstruct;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+@Import(TestcontainersConfiguration.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {"app.db.init.enabled=false", "app.query-budget.mode=fail"})
+class BookControllerTestIT {
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @LocalServerPort
+    private int port;
+
+    @PostConstruct
+    public void init() {
+        RestAssured.baseURI = "http://localhost/";
+        RestAssured.port = port;
+    }
+
+    @BeforeEach
+    void setUp() {
+        authorRepository.deleteAll();
+
+        Author a1 = Author.builder()
+                .firstName("firstname")
+                .lastName("lastname")
+                .build();
+        for (int i = 1; i <= 3; i++) {
+            a1.addBook(Book.builder()
+                    .title("Book " + i + " book title")
+                    .price(BigDecimal.valueOf(10.00 + i))
+                    .publishDate(LocalDate.of(2024, i, 10))
+                    .build());
+        }
+        a1.addBook(Book.builder()
+                .title("Something else")
+                .price(BigDecimal.valueOf(20.00))
+                .publishDate(LocalDate.of(2024, 4, 10))
+                .build());
+        authorRepository.save(a1);
+    }
+
+    @Test
+    void searchBooksByPrefix() {
+        // the three titles score the same, ties are ordered by id, so the cursor continues after the second one
+        String nextCursor = given()
+                .contentType(ContentType.JSON)
+        .when()
+                .queryParam("q", "book tit")
+                .queryParam("limit", 2)
+                .get("/api/books/search")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+                .contentType(ContentType.JSON)
+                .body("content.title", contains("Book 1 book title", "Book 2 book title"))
+                .body("nextCursor", notNullValue())
+        .extract().path("nextCursor");
+
+        given()
+                .contentType(ContentType.JSON)
+        .when()
+                .queryParam("q", "book tit")
+                .queryParam("after", nextCursor)
+                .queryParam("limit", 2)
+                .get("/api/books/search")
+        .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("content.title", contains("Book 3 book title"))
+                .body("nextCursor", nullValue());
+    }
+
+    @Test
+    void searchBooksWithInvalidQueryCursorOrLimit() {
+        given()
+                .contentType(ContentType.JSON)
+        .when()
+                .queryParam("q", " ")
+                .get("/api/books/search")
+        .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+
+        given()
+                .contentType(ContentType.JSON)
+        .when()
+                .queryParam("q", "book")
+                .queryParam("after", "not a cursor")
+                .get("/api/books/search")
+        .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+
+        given()
+                .contentType(ContentType.JSON)
+        .when()
+                .queryParam("q", "book")
+                .queryParam("limit", 0)
+                .get("/api/books/search")
+        .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+}
@@ -0,0 +1,76 @@
+package dev.smo.spring.postgres.jpa.onetomany.controller;
+
+import dev.smo.spring.postgres.jpa.onetomany.TestcontainersConfiguration;
+import dev.smo.spring.postgres.jpa.onetomany.entities.Author;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorRepository;
+import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorStatsRepository;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs in a context and database of its own, so the first book is inserted by the request and not by a setup,
+ * the request fetches the first block of the book sequence and creates the summary of the author.
+ */
+@Import(TestcontainersConfiguration.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {"app.db.init.enabled=false", "app.query-budget.mode=fail",
+        "app.stats.summary-table.enabled=true"})
+class QueryBudgetTestIT {
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    AuthorStatsRepository authorStatsRepository;
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.baseURI = "http://localhost/";
+        RestAssured.port = port;
+    }
+
+    @Test
+    void createFirstBookAfterStartIsWithinBudget() {
+        var author = authorRepository.save(Author.builder()
+                .firstName("First")
+                .lastName("Book")
+                .build());
+        var book = BookDTO.builder()
+                .title("First book after start")
+                .price(BigDecimal.valueOf(10.00))
+                .publishDate(LocalDate.of(2024, 1, 10))
+                .build();
+
+        given()
+                .contentType(ContentType.JSON)
+                .pathParam("id", author.getId())
+                .body(book)
+                .when()
+                .post("/api/authors/{id}/books")
+                .then()
+                    .statusCode(HttpStatus.CREATED.value());
+
+        assertThat(authorStatsRepository.findAuthorStatsDtoById(author.getId())).hasValueSatisfying(
+                stats -> assertThat(stats.getBookCount()).isEqualTo(1));
+    }
+}
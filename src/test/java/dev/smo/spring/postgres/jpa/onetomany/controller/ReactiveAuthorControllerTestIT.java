@@ -0,0 +1,173 @@
+package dev.smo.spring.postgres.jpa.onetomany.controller;
+
+import dev.smo.spring.postgres.jpa.onetomany.TestcontainersConfiguration;
+import dev.smo.spring.postgres.jpa.onetomany.entities.Author;
+import dev.smo.spring.postgres.jpa.onetomany.entities.Book;
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@ActiveProfiles("reactive")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {"app.db.init.enabled=false"})
+class ReactiveAuthorControllerTestIT {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    private Author author1;
+
+    @BeforeEach
+    void setUp() {
+        authorRepository.deleteAll();
+
+        Author a1 = Author.builder()
+                .firstName("Author 1 first name")
+                .lastName("Author 1 last name")
+                .build();
+        for (int i = 1; i <= 3; i++) {
+            a1.addBook(Book.builder()
+                    .title("Book 1." + i + " book title")
+                    .price(BigDecimal.valueOf(10 + i))
+                    .publishDate(LocalDate.of(2024, i, 1))
+                    .build());
+        }
+        author1 = authorRepository.save(a1);
+    }
+
+    @Test
+    void getAuthorWithExistingId() {
+        webTestClient.get().uri("/api/authors/{id}", author1.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(author1.getId().intValue())
+                .jsonPath("$.firstName").isEqualTo(author1.getFirstName());
+    }
+
+    @Test
+    void getAuthorWithNonExistingId() {
+        webTestClient.get().uri("/api/authors/{id}", 0)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void getAuthorWithIfNoneMatch() {
+        var eTag = webTestClient.get().uri("/api/authors/{id}", author1.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .returnResult(AuthorDTO.class)
+                .getResponseHeaders().getETag();
+
+        webTestClient.get().uri("/api/authors/{id}", author1.getId())
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, eTag);
+    }
+
+    @Test
+    void updateAuthorWithIfMatch() {
+        var eTag = webTestClient.get().uri("/api/authors/{id}", author1.getId())
+                .exchange()
+                .returnResult(AuthorDTO.class)
+                .getResponseHeaders().getETag();
+
+        var newETag = webTestClient.put().uri("/api/authors/{id}", author1.getId())
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .bodyValue(AuthorDTO.builder().firstName("Updated first name").lastName("Updated last name").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.firstName").isEqualTo("Updated first name")
+                .returnResult()
+                .getResponseHeaders().getETag();
+        assertThat(newETag).isNotEqualTo(eTag);
+
+        // the ETag is outdated now
+        webTestClient.put().uri("/api/authors/{id}", author1.getId())
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .bodyValue(AuthorDTO.builder().firstName("Lost first name").lastName("Lost last name").build())
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        webTestClient.post().uri("/api/authors/{id}/books", author1.getId())
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .bodyValue(BookDTO.builder().title("Lost book").build())
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(authorRepository.findById(author1.getId()).orElseThrow().getFirstName()).isEqualTo("Updated first name");
+
+        webTestClient.put().uri("/api/authors/{id}", 0)
+                .bodyValue(AuthorDTO.builder().firstName("Nobody").build())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void streamBooksForAuthorWithId() {
+        var books = webTestClient.get().uri("/api/authors/{id}/books", author1.getId())
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(BookDTO.class)
+                .getResponseBody();
+
+        StepVerifier.create(books, 1)
+                .expectNextMatches(book -> book.getTitle().equals("Book 1.1 book title"))
+                .thenRequest(2)
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void createAuthorAndBook() {
+        var author = webTestClient.post().uri("/api/authors")
+                .bodyValue(AuthorDTO.builder().firstName("New first name").lastName("New last name").build())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(AuthorDTO.class)
+                .returnResult().getResponseBody();
+        assertThat(author).isNotNull();
+        assertThat(authorRepository.findById(author.getId())).isPresent();
+
+        webTestClient.post().uri("/api/authors/{id}/books", author.getId())
+                .bodyValue(BookDTO.builder().title("New book").price(BigDecimal.valueOf(9.99)).publishDate(LocalDate.of(2024, 5, 5)).build())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("New book");
+        assertThat(authorRepository.findByIdWithBooks(author.getId()).orElseThrow().getBooks())
+                .extracting(Book::getTitle)
+                .isEqualTo(List.of("New book"));
+        assertThat(authorRepository.findVersionById(author.getId())).contains(1L);
+
+        webTestClient.post().uri("/api/authors/{id}/books", 0)
+                .bodyValue(BookDTO.builder().title("Lost book").build())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+}
@@ -0,0 +1,147 @@
+package dev.smo.spring.postgres.jpa.onetomany.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private final ReplicaHealthCheck healthCheck = new ReplicaHealthCheck(replica, Duration.ofSeconds(10));
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+
+        var proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(new ReplicaRoutingDataSource(primary, replica, healthCheck));
+        dataSource = proxy;
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWrites.clear();
+    }
+
+    @Test
+    void readOnlyConnectionUsesReplica() throws SQLException {
+        assertThat(target(true)).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void writeConnectionUsesPrimary() throws SQLException {
+        assertThat(target(false)).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void readOnlyConnectionUsesPrimaryAfterWrite() throws SQLException {
+        ReadYourWrites.requirePrimary();
+
+        assertThat(target(true)).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void readOnlyConnectionUsesPrimaryForCacheLoad() throws SQLException {
+        var target = ReadYourWrites.onPrimary(() -> {
+            try {
+                return target(true);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(target).isSameAs(primaryConnection);
+        assertThat(ReadYourWrites.isPrimaryRequired()).isFalse();
+        assertThat(target(true)).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void readOnlyConnectionUsesPrimaryWhileReplicaIsUnhealthy() throws SQLException {
+        when(replica.getConnection()).thenThrow(new SQLException("connection refused"));
+        healthCheck.check();
+
+        assertThat(healthCheck.isHealthy()).isFalse();
+        assertThat(target(true)).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void replicaIsHealthyAgainAfterSuccessfulCheck() throws SQLException {
+        when(replica.getConnection()).thenThrow(new SQLException("connection refused")).thenReturn(replicaConnection);
+        when(replicaConnection.isValid(anyInt())).thenReturn(true);
+        var statement = mock(Statement.class);
+        var result = mock(ResultSet.class);
+        when(replicaConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(result);
+        when(result.next()).thenReturn(true);
+        when(result.getDouble(1)).thenReturn(0.5);
+        when(result.getBoolean(2)).thenReturn(true);
+
+        healthCheck.check();
+        healthCheck.check();
+
+        assertThat(healthCheck.isHealthy()).isTrue();
+    }
+
+    @Test
+    void replicaLaggingTooFarBehindIsUnhealthy() throws SQLException {
+        when(replicaConnection.isValid(anyInt())).thenReturn(true);
+        var statement = mock(Statement.class);
+        var result = mock(ResultSet.class);
+        when(replicaConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(result);
+        when(result.next()).thenReturn(true);
+        when(result.getDouble(1)).thenReturn(30.0);
+        when(result.getBoolean(2)).thenReturn(true);
+
+        healthCheck.check();
+
+        assertThat(healthCheck.isHealthy()).isFalse();
+    }
+
+    @Test
+    void replicaNotStreamingFromPrimaryIsUnhealthy() throws SQLException {
+        when(replicaConnection.isValid(anyInt())).thenReturn(true);
+        var statement = mock(Statement.class);
+        var result = mock(ResultSet.class);
+        when(replicaConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(result);
+        when(result.next()).thenReturn(true);
+        // replayed everything it received before it lost the connection, so it reports no lag
+        when(result.getDouble(1)).thenReturn(0.0);
+        when(result.getBoolean(2)).thenReturn(false);
+
+        healthCheck.check();
+
+        assertThat(healthCheck.isHealthy()).isFalse();
+        assertThat(target(true)).isSameAs(primaryConnection);
+    }
+
+    /**
+     * Opens a connection the way the transaction manager does and returns the physical connection it ends up on.
+     */
+    private Connection target(boolean readOnly) throws SQLException {
+        try (var connection = dataSource.getConnection()) {
+            connection.setReadOnly(readOnly);
+            return ((ConnectionProxy) connection).getTargetConnection();
+        }
+    }
+}
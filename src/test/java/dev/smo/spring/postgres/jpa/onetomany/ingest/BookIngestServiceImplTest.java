@@ -0,0 +1,147 @@
+package dev.smo.spring.postgres.jpa.onetomany.ingest;
+
+import dev.smo.spring.postgres.jpa.onetomany.TestcontainersConfiguration;
+import dev.smo.spring.postgres.jpa.onetomany.exception.ServiceUnavailableException;
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.IngestStatusDTO;
+import dev.smo.spring.postgres.jpa.onetomany.service.AuthorService;
+import dev.smo.spring.postgres.jpa.onetomany.service.BookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {"app.db.init.enabled=false", "app.ingest.enabled=true", "app.ingest.max-pending=3",
+        "app.ingest.drain-interval=1h"})
+class BookIngestServiceImplTest {
+
+    @TempDir
+    static Path journalDirectory;
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.ingest.directory", journalDirectory::toString);
+    }
+
+    @Autowired
+    BookIngestServiceImpl bookIngestService;
+
+    @Autowired
+    AuthorService authorService;
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    BookJournal bookJournal;
+
+    private Long authorId;
+
+    @BeforeEach
+    void setUp() {
+        authorId = authorService.save(AuthorDTO.builder().firstName("firstname").lastName("lastname").build()).getId();
+    }
+
+    @AfterEach
+    void drain() {
+        bookIngestService.drain();
+    }
+
+    @Test
+    void submittedBookIsPendingUntilDrained() {
+        var submitted = bookIngestService.submit(book("book 1"), authorId, null);
+        assertThat(submitted.getStatus()).isEqualTo(IngestStatusDTO.Status.PENDING);
+        assertThat(bookIngestService.findStatus(submitted.getTrackingId()))
+                .map(IngestStatusDTO::getStatus)
+                .contains(IngestStatusDTO.Status.PENDING);
+
+        bookIngestService.drain();
+
+        var applied = bookIngestService.findStatus(submitted.getTrackingId()).orElseThrow();
+        assertThat(applied.getStatus()).isEqualTo(IngestStatusDTO.Status.APPLIED);
+        assertThat(bookService.findAllBooksForAuthorWithId(authorId))
+                .extracting(BookDTO::getId, BookDTO::getTitle)
+                .containsExactly(tuple(applied.getBookId(), "book 1"));
+        assertThat(bookJournal.read(bookJournal.checkpoint(), 10)).isEmpty();
+    }
+
+    @Test
+    void bookOfModifiedOrUnknownAuthorIsRejected() {
+        var version = authorService.findVersionById(authorId).orElseThrow();
+        var first = bookIngestService.submit(book("book 1"), authorId, version);
+        var second = bookIngestService.submit(book("book 2"), authorId, version);
+        var unknown = bookIngestService.submit(book("book 3"), Long.MAX_VALUE, null);
+
+        bookIngestService.drain();
+
+        assertThat(bookIngestService.findStatus(first.getTrackingId()))
+                .map(IngestStatusDTO::getStatus)
+                .contains(IngestStatusDTO.Status.APPLIED);
+        assertThat(bookIngestService.findStatus(second.getTrackingId()))
+                .map(IngestStatusDTO::getStatus)
+                .contains(IngestStatusDTO.Status.REJECTED);
+        assertThat(bookIngestService.findStatus(unknown.getTrackingId()))
+                .map(IngestStatusDTO::getError)
+                .contains("Author with id: '" + Long.MAX_VALUE + "' not found or modified!");
+    }
+
+    @Test
+    void invalidBookIsRejectedWithoutRejectingBatch() {
+        var valid = bookIngestService.submit(book("book 1"), authorId, null);
+        // longer than the title column
+        var invalid = bookIngestService.submit(book("x".repeat(256)), authorId, null);
+
+        bookIngestService.drain();
+
+        assertThat(bookIngestService.findStatus(valid.getTrackingId()))
+                .map(IngestStatusDTO::getStatus)
+                .contains(IngestStatusDTO.Status.APPLIED);
+        assertThat(bookIngestService.findStatus(invalid.getTrackingId()))
+                .map(IngestStatusDTO::getStatus)
+                .contains(IngestStatusDTO.Status.REJECTED);
+    }
+
+    @Test
+    void submitIsRejectedWhenTooManyBooksArePending() {
+        var submitted = new ArrayList<IngestStatusDTO>();
+        for (int i = 0; i < 3; i++) {
+            submitted.add(bookIngestService.submit(book("book " + i), authorId, null));
+        }
+
+        assertThatThrownBy(() -> bookIngestService.submit(book("book 3"), authorId, null))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .extracting(e -> ((ServiceUnavailableException) e).getHeaders().getFirst("Retry-After"))
+                .isEqualTo("5");
+        assertThat(submitted).allSatisfy(status -> assertThat(bookIngestService.findStatus(status.getTrackingId())).isPresent());
+    }
+
+    @Test
+    void unknownTrackingIdIsNotFound() {
+        assertThat(bookIngestService.findStatus(UUID.randomUUID())).isEmpty();
+    }
+
+    private static BookDTO book(String title) {
+        return BookDTO.builder()
+                .title(title)
+                .price(BigDecimal.valueOf(10.00))
+                .publishDate(LocalDate.of(2024, 1, 10))
+                .build();
+    }
+}
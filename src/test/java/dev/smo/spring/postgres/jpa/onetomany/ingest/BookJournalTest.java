@@ -0,0 +1,98 @@
+package dev.smo.spring.postgres.jpa.onetomany.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookJournalTest {
+
+    private static final int SEGMENT_SIZE = 64;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsAppendedEntriesAfterCheckpoint() {
+        try (var journal = new BookJournal(directory, SEGMENT_SIZE)) {
+            journal.append(bytes("one"));
+            journal.append(bytes("two"));
+
+            var entries = journal.read(journal.checkpoint(), 10);
+            assertThat(payloads(entries)).containsExactly("one", "two");
+
+            journal.commit(entries.getFirst().next());
+            assertThat(payloads(journal.read(journal.checkpoint(), 10))).containsExactly("two");
+        }
+    }
+
+    @Test
+    void replaysUncommittedEntriesAfterReopen() {
+        try (var journal = new BookJournal(directory, SEGMENT_SIZE)) {
+            journal.append(bytes("one"));
+            journal.append(bytes("two"));
+            journal.commit(journal.read(journal.checkpoint(), 1).getFirst().next());
+        }
+
+        try (var journal = new BookJournal(directory, SEGMENT_SIZE)) {
+            assertThat(payloads(journal.read(journal.checkpoint(), 10))).containsExactly("two");
+            journal.append(bytes("three"));
+            assertThat(payloads(journal.read(journal.checkpoint(), 10))).containsExactly("two", "three");
+        }
+    }
+
+    @Test
+    void rollsOverToNewSegmentAndDeletesCommittedSegments() throws IOException {
+        try (var journal = new BookJournal(directory, SEGMENT_SIZE)) {
+            for (int i = 0; i < 5; i++) {
+                journal.append(bytes("entry number " + i));
+            }
+            var entries = journal.read(journal.checkpoint(), 10);
+            assertThat(payloads(entries)).hasSize(5);
+            assertThat(segments()).hasSizeGreaterThan(1);
+
+            journal.commit(entries.getLast().next());
+            assertThat(journal.read(journal.checkpoint(), 10)).isEmpty();
+            assertThat(segments()).hasSize(1);
+        }
+    }
+
+    @Test
+    void discardsTornEntryAtEnd() throws IOException {
+        try (var journal = new BookJournal(directory, SEGMENT_SIZE)) {
+            journal.append(bytes("one"));
+            journal.append(bytes("two"));
+        }
+        // corrupt the payload of the last entry as if its write was interrupted
+        var segment = segments().getFirst();
+        var content = Files.readAllBytes(segment);
+        content[8 + 3 + 8] ^= 1;
+        Files.write(segment, content);
+
+        try (var journal = new BookJournal(directory, SEGMENT_SIZE)) {
+            assertThat(payloads(journal.read(journal.checkpoint(), 10))).containsExactly("one");
+            journal.append(bytes("three"));
+            assertThat(payloads(journal.read(journal.checkpoint(), 10))).containsExactly("one", "three");
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".journal")).sorted().toList();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> payloads(List<BookJournal.Entry> entries) {
+        return entries.stream().map(entry -> new String(entry.payload(), StandardCharsets.UTF_8)).toList();
+    }
+}
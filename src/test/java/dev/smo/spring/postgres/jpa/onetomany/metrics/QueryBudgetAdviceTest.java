@@ -0,0 +1,83 @@
+package dev.smo.spring.postgres.jpa.onetomany.metrics;
+
+import dev.smo.spring.postgres.jpa.onetomany.exception.QueryBudgetExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueryBudgetAdviceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void stopStatistics() {
+        RequestStatistics.stop();
+    }
+
+    @Test
+    void withinBudgetPassesBody() throws Exception {
+        var advice = new QueryBudgetAdvice("fail", meterRegistry);
+        RequestStatistics.start();
+        RequestStatistics.statementPrepared();
+
+        assertThat(write(advice, "budgeted")).isEqualTo("body");
+    }
+
+    @Test
+    void exceededBudgetFailsInFailMode() throws Exception {
+        var advice = new QueryBudgetAdvice("fail", meterRegistry);
+        RequestStatistics.start();
+        RequestStatistics.statementPrepared();
+        RequestStatistics.statementPrepared();
+
+        assertThatThrownBy(() -> write(advice, "budgeted"))
+                .isInstanceOf(QueryBudgetExceededException.class)
+                .hasMessageContaining("2 statements (max 1)");
+    }
+
+    @Test
+    void exceededEntityBudgetIsCountedInLogMode() throws Exception {
+        var advice = new QueryBudgetAdvice("log", meterRegistry);
+        RequestStatistics.start();
+        RequestStatistics.entityLoaded();
+        RequestStatistics.entityLoaded();
+
+        assertThat(write(advice, "budgeted")).isEqualTo("body");
+        assertThat(meterRegistry.get("app.request.query.budget.exceeded").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void methodsWithoutBudgetOrModeOffAreNotSupported() throws Exception {
+        assertThat(new QueryBudgetAdvice("fail", meterRegistry)
+                .supports(returnType("unbudgeted"), MappingJackson2HttpMessageConverter.class)).isFalse();
+        assertThat(new QueryBudgetAdvice("off", meterRegistry)
+                .supports(returnType("budgeted"), MappingJackson2HttpMessageConverter.class)).isFalse();
+    }
+
+    private static Object write(QueryBudgetAdvice advice, String method) throws Exception {
+        return advice.beforeBodyWrite("body", returnType(method), MediaType.APPLICATION_JSON,
+                MappingJackson2HttpMessageConverter.class, null, null);
+    }
+
+    private static MethodParameter returnType(String method) throws Exception {
+        return new MethodParameter(Handlers.class.getDeclaredMethod(method), -1);
+    }
+
+    static class Handlers {
+
+        @QueryBudget(max = 1, maxEntities = 1)
+        String budgeted() {
+            return "body";
+        }
+
+        String unbudgeted() {
+            return "body";
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package dev.smo.spring.postgres.jpa.onetomany.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestStatisticsInterceptorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestStatisticsInterceptor interceptor = new RequestStatisticsInterceptor(meterRegistry, true);
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @AfterEach
+    void stopStatistics() {
+        RequestStatistics.stop();
+    }
+
+    @Test
+    void recordsStatementsAfterCompletion() {
+        var request = request();
+
+        interceptor.preHandle(request, response, null);
+        RequestStatistics.statementPrepared();
+        interceptor.afterCompletion(request, response, null, null);
+
+        assertThat(RequestStatistics.current()).isNull();
+        assertThat(meterRegistry.get("app.request.sql.statements").tag("uri", "/api/authors").summary().totalAmount())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void stopsStatisticsWhenAsyncHandlingStarts() {
+        var request = request();
+
+        interceptor.preHandle(request, response, null);
+        interceptor.afterConcurrentHandlingStarted(request, response, null);
+
+        assertThat(RequestStatistics.current()).isNull();
+
+        // the async dispatch completes the request on another thread
+        request.setDispatcherType(DispatcherType.ASYNC);
+        interceptor.preHandle(request, response, null);
+        interceptor.afterCompletion(request, response, null, null);
+
+        assertThat(meterRegistry.find("app.request.sql.statements").summary()).isNull();
+    }
+
+    private static MockHttpServletRequest request() {
+        var request = new MockHttpServletRequest("GET", "/api/authors");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/authors");
+        return request;
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 import org.testcontainers.containers.PostgreSQLContainer;
@@ -112,4 +113,33 @@ class AuthorRepositoryTest {
         assertThat(authorRetrieved.get().getBooks().size()).isEqualTo(1);
     }
 
+    @Test
+    @Transactional
+    @Rollback
+    void findAuthorDtosAfter() {
+        var saved = authorRepository.saveAll(List.of(
+                Author.builder().firstName("first").lastName("lastname").build(),
+                Author.builder().firstName("second").lastName("lastname").build(),
+                Author.builder().firstName("third").lastName("lastname").build()));
+
+        var page = authorRepository.findAuthorDtosAfter(saved.getFirst().getId(), Limit.of(1));
+        assertEquals(1, page.size());
+        assertEquals(saved.get(1).getId(), page.getFirst().getId());
+        assertEquals("second", page.getFirst().getFirstName());
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    void findAuthorDtoById() {
+        var saved = authorRepository.save(Author.builder().firstName("firstname").lastName("lastname").build());
+
+        var author = authorRepository.findAuthorDtoById(saved.getId());
+        assertThat(author.isPresent()).isTrue();
+        assertEquals(saved.getId(), author.get().getId());
+        assertEquals("firstname", author.get().getFirstName());
+        assertEquals("lastname", author.get().getLastName());
+        assertThat(authorRepository.findAuthorDtoById(-1L).isPresent()).isFalse();
+    }
+
 }
\ No newline at end of file
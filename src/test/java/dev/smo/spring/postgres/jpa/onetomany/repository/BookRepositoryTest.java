@@ -119,4 +119,46 @@ class BookRepositoryTest {
         assertEquals("BookWithTitle", books.getFirst().getTitle());
     }
 
-}
\ No newline at end of file
+    @Test
+    @Transactional
+    @Rollback
+    void findBookDtosByAuthorId() {
+        Book b1 = Book.builder()
+                .title("BookWithTitle")
+                .price(BigDecimal.valueOf(39.99))
+                .publishDate(LocalDate.of(2023, 5, 5))
+                .build();
+        Author a1 = Author.builder()
+                .firstName("firstname")
+                .lastName("lastname")
+                .books(new ArrayList<>())
+                .build();
+        a1.addBook(b1);
+        var as = authorRepository.save(a1);
+
+        var books = bookRepository.findBookDtosByAuthorId(as.getId());
+        assertEquals(1, books.size());
+        assertEquals(b1.getId(), books.getFirst().getId());
+        assertEquals("BookWithTitle", books.getFirst().getTitle());
+        assertEquals(0, BigDecimal.valueOf(39.99).compareTo(books.getFirst().getPrice()));
+        assertEquals(LocalDate.of(2023, 5, 5), books.getFirst().getPublishDate());
+    }
+
+    @Test
+    @Transactional
+    @Rollback
+    void searchByTitle() {
+        var springBoot = bookRepository.save(Book.builder().title("Spring Boot in Action").build());
+        bookRepository.save(Book.builder().title("Spring Security").build());
+        var internals = bookRepository.saveAndFlush(Book.builder().title("PostgreSQL Internals").build());
+
+        var hits = bookRepository.searchByTitle("spring bo", "spring:* & bo:*", Double.POSITIVE_INFINITY, 0L, 10);
+        assertEquals(springBoot.getId(), hits.getFirst().getId());
+        assertThat(hits).extracting(SearchHit::getId).doesNotContain(internals.getId());
+
+        var afterFirst = bookRepository.searchByTitle("spring bo", "spring:* & bo:*",
+                hits.getFirst().getScore(), hits.getFirst().getId(), 10);
+        assertThat(afterFirst).extracting(SearchHit::getId).doesNotContain(springBoot.getId());
+    }
+
+}
@@ -0,0 +1,220 @@
+package dev.smo.spring.postgres.jpa.onetomany.repository;
+
+import dev.smo.spring.postgres.jpa.onetomany.TestcontainersConfiguration;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookFilter;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the queries of the repository methods are served by the indexes of the migrations. Every method is
+ * called and the SQL Hibernate prepares for it is captured by a {@link StatementInspector}, so the test explains the
+ * statements that really run, also those {@link BookPageRepositoryImpl} assembles for a few sorts and filters.
+ * The statements are explained as generic plans, the plan of the bind parameters rather than of one set of values.
+ * Sequential scans are disabled, so PostgreSQL only falls back to one if no index can serve the query, also on the
+ * empty test tables. {@code findAll}, {@code findAuthorDtos} and {@code streamAllWithBooks} read whole tables by
+ * design and are left out.
+ */
+@Import(TestcontainersConfiguration.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest
+class QueryPlanTest {
+
+    private static final List<String> statements = new ArrayList<>();
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class StatementCapture {
+
+        @Bean
+        HibernatePropertiesCustomizer statementCaptureCustomizer() {
+            return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                    (StatementInspector) sql -> {
+                        statements.add(sql);
+                        return sql;
+                    });
+        }
+    }
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    AuthorStatsRepository authorStatsRepository;
+
+    @BeforeEach
+    void disableSequentialScans() {
+        entityManager.createNativeQuery("set local enable_seqscan = off").executeUpdate();
+    }
+
+    static Stream<Arguments> queries() {
+        var ids = List.of(1L, 2L, 3L, 4L);
+        return Stream.of(
+                query("AuthorRepository.findByFirstName",
+                        repositories -> repositories.authors().findByFirstName("Craig"),
+                        "author_first_name_idx"),
+                query("AuthorRepository.deleteByFirstName",
+                        repositories -> repositories.authors().deleteByFirstName("Craig"),
+                        "author_first_name_idx"),
+                query("AuthorRepository.findByIdWithBooks",
+                        repositories -> repositories.authors().findByIdWithBooks(1L),
+                        "author_pkey"),
+                query("AuthorRepository.findAuthorDtoById",
+                        repositories -> repositories.authors().findAuthorDtoById(1L),
+                        "author_pkey"),
+                query("AuthorRepository.findVersionedAuthorDtoById",
+                        repositories -> repositories.authors().findVersionedAuthorDtoById(1L),
+                        "author_pkey"),
+                query("AuthorRepository.findVersionBookRowsById",
+                        repositories -> repositories.authors().findVersionBookRowsById(1L),
+                        "author_pkey", "book_author_id_idx"),
+                query("AuthorRepository.findAuthorDtosAfter",
+                        repositories -> repositories.authors().findAuthorDtosAfter(1L, Limit.of(101)),
+                        "author_pkey"),
+                query("AuthorRepository.findAuthorDtosByIdIn",
+                        repositories -> repositories.authors().findAuthorDtosByIdIn(ids),
+                        "author_pkey"),
+                query("AuthorRepository.findVersionById",
+                        repositories -> repositories.authors().findVersionById(1L),
+                        "author_pkey"),
+                query("AuthorRepository.findByIdForUpdate",
+                        repositories -> repositories.authors().findByIdForUpdate(1L),
+                        "author_pkey"),
+                query("AuthorRepository.searchByName",
+                        repositories -> repositories.authors().searchByName("spring bo", "spring:* & bo:*", Double.POSITIVE_INFINITY, 0, 21),
+                        "author_name_fts_idx", "author_name_trgm_idx"),
+                query("BookRepository.findByTitle",
+                        repositories -> repositories.books().findByTitle("Spring in Action"),
+                        "book_title_idx"),
+                query("BookRepository.findBooksByAuthorId",
+                        repositories -> repositories.books().findBooksByAuthorId(1L),
+                        "book_author_id_idx"),
+                query("BookRepository.findBookDtosByAuthorId",
+                        repositories -> repositories.books().findBookDtosByAuthorId(1L),
+                        "book_author_id_idx"),
+                query("BookRepository.findBookDtoPage by publish date after a cursor",
+                        repositories -> repositories.books().findBookDtoPage(1L, new BookFilter(),
+                                new BookSort(BookSort.Key.PUBLISH_DATE, false), LocalDate.parse("2024-01-10"), 1L, 21),
+                        "book_author_publish_date_idx"),
+                query("BookRepository.findBookDtoPage by price descending in a price range",
+                        repositories -> repositories.books().findBookDtoPage(1L,
+                                BookFilter.builder().minPrice(new BigDecimal("10")).maxPrice(new BigDecimal("30")).build(),
+                                new BookSort(BookSort.Key.PRICE, true), new BigDecimal("20.00"), 1L, 21),
+                        "book_author_price_idx"),
+                query("BookRepository.findBookDtoPage by title, first page",
+                        repositories -> repositories.books().findBookDtoPage(1L, new BookFilter(),
+                                new BookSort(BookSort.Key.TITLE, false), null, null, 21),
+                        "book_author_title_idx"),
+                query("BookRepository.findBookDtoPage by title, books without a title",
+                        repositories -> repositories.books().findBookDtoPage(1L, new BookFilter(),
+                                new BookSort(BookSort.Key.TITLE, false), null, 1L, 21),
+                        "book_author_title_idx"),
+                query("BookRepository.findBookRowsByAuthorIdIn",
+                        repositories -> repositories.books().findBookRowsByAuthorIdIn(ids),
+                        "book_author_id_idx"),
+                query("BookRepository.findAuthorStatsDtoByAuthorId",
+                        repositories -> repositories.books().findAuthorStatsDtoByAuthorId(1L),
+                        "book_author_id_idx"),
+                query("BookRepository.findAuthorStatsDtosAfter",
+                        repositories -> repositories.books().findAuthorStatsDtosAfter(1L, Limit.of(101)),
+                        "book_author_id_idx"),
+                query("BookRepository.findBookDtosByIdIn",
+                        repositories -> repositories.books().findBookDtosByIdIn(ids),
+                        "book_pkey"),
+                query("BookRepository.searchByTitle",
+                        repositories -> repositories.books().searchByTitle("spring bo", "spring:* & bo:*", Double.POSITIVE_INFINITY, 0, 21),
+                        "book_title_fts_idx", "book_title_trgm_idx"),
+                query("AuthorStatsRepository.findAuthorStatsDtoById",
+                        repositories -> repositories.authorStats().findAuthorStatsDtoById(1L),
+                        "author_stats_pkey"),
+                query("AuthorStatsRepository.addBook",
+                        repositories -> repositories.authorStats().addBook(1L),
+                        "book_pkey"),
+                query("AuthorStatsRepository.insertFromBooks",
+                        repositories -> repositories.authorStats().insertFromBooks(1L),
+                        "book_author_id_idx")
+        );
+    }
+
+    @ParameterizedTest(name = "{0} uses {2}")
+    @MethodSource("queries")
+    void queryUsesIndex(String method, Consumer<Repositories> call, List<String> indexes) {
+        statements.clear();
+        call.accept(new Repositories(authorRepository, bookRepository, authorStatsRepository));
+        var executed = List.copyOf(statements);
+
+        assertThat(executed).as(method).isNotEmpty();
+        var plans = executed.stream().map(this::explain).toList();
+        assertThat(plans).as(method).allSatisfy(plan -> assertThat(plan).doesNotContain("Seq Scan"));
+        assertThat(String.join("\n", plans)).as(method).contains(indexes);
+    }
+
+    private String explain(String sql) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            // a plain statement, so neither the driver nor Hibernate treat the numbered parameters as bind markers
+            try (var statement = connection.createStatement();
+                 var plan = statement.executeQuery("explain (generic_plan) " + numberParameters(sql))) {
+                var lines = new ArrayList<String>();
+                while (plan.next()) {
+                    lines.add(plan.getString(1));
+                }
+                return lines.stream().collect(Collectors.joining("\n", sql + "\n", ""));
+            }
+        });
+    }
+
+    /**
+     * Replaces the JDBC bind markers outside of string literals by the {@code $1, $2, ...} of PostgreSQL.
+     */
+    private static String numberParameters(String sql) {
+        var numbered = new StringBuilder();
+        var inLiteral = false;
+        var parameter = 0;
+        for (var c : sql.toCharArray()) {
+            if (c == '\'') {
+                inLiteral = !inLiteral;
+            }
+            if (c == '?' && !inLiteral) {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+
+    private static Arguments query(String method, Consumer<Repositories> call, String... indexes) {
+        return Arguments.of(method, call, List.of(indexes));
+    }
+
+    record Repositories(AuthorRepository authors, BookRepository books, AuthorStatsRepository authorStats) {
+    }
+}
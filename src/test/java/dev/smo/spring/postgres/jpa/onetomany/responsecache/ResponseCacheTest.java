@@ -0,0 +1,176 @@
+package dev.smo.spring.postgres.jpa.onetomany.responsecache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ResponseCacheProperties properties = new ResponseCacheProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void servesSameVersionFromCache() {
+        var cache = new ResponseCache(objectMapper, properties, meterRegistry);
+
+        var first = cache.respond(request(null), "books", 1, false, this::load);
+        var second = cache.respond(request(null), "books", 1, false, this::load);
+
+        assertThat(loads).hasValue(1);
+        assertThat(second.getBody()).isEqualTo(first.getBody()).isEqualTo("[\"0\"]".getBytes());
+        assertThat(second.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "responses").tag("result", "hit").functionCounter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void loadsAgainForNewVersion() {
+        var cache = new ResponseCache(objectMapper, properties, meterRegistry);
+
+        cache.respond(request(null), "books", 1, false, this::load);
+        var updated = cache.respond(request(null), "books", 2, false, this::load);
+
+        assertThat(loads).hasValue(2);
+        assertThat(updated.getBody()).isEqualTo("[\"1\"]".getBytes());
+    }
+
+    @Test
+    void servesCompressedBodyToClientsAcceptingGzip() throws IOException {
+        properties.setCompressionMinSize(DataSize.ofBytes(100));
+        var cache = new ResponseCache(objectMapper, properties, meterRegistry);
+        var large = IntStream.range(0, 100).mapToObj(i -> "book " + i).toList();
+
+        var plain = cache.respond(request(null), "books", 1, false, () -> large);
+        var request = new MockHttpServletRequest("GET", "/api/authors/1/books");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+        var compressed = cache.respond(new ServletWebRequest(request), "books", 1, false, () -> large);
+
+        assertThat(plain.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(compressed.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gunzip((byte[]) compressed.getBody())).isEqualTo(plain.getBody());
+        assertThat(meterRegistry.get("app.response.cache.bytes.saved").counter().count()).isPositive();
+    }
+
+    @Test
+    void tagsCompressedBodyWithItsOwnETag() {
+        properties.setCompressionMinSize(DataSize.ofBytes(100));
+        var cache = new ResponseCache(objectMapper, properties, meterRegistry);
+        var large = IntStream.range(0, 100).mapToObj(i -> "book " + i).toList();
+
+        var plain = cache.respond(request(null), "books", 3, true, () -> large);
+        var compressed = cache.respond(gzipRequest(null), "books", 3, true, () -> large);
+
+        assertThat(plain.getHeaders().getETag()).isEqualTo("\"3\"");
+        assertThat(compressed.getHeaders().getETag()).isEqualTo("\"3-gzip\"");
+        assertThat(plain.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        assertThat(compressed.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    @Test
+    void answersMatchingIfNoneMatchWithNotModified() {
+        properties.setCompressionMinSize(DataSize.ofBytes(100));
+        var cache = new ResponseCache(objectMapper, properties, meterRegistry);
+        var large = IntStream.range(0, 100).mapToObj(i -> "book " + i).toList();
+
+        var compressed = cache.respond(gzipRequest("\"3-gzip\""), "books", 3, true, () -> large);
+        var plain = cache.respond(gzipRequest("\"3\""), "books", 3, true, () -> large);
+
+        assertThat(compressed.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(compressed.getHeaders().getETag()).isEqualTo("\"3-gzip\"");
+        assertThat(compressed.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        // the client holds the plain body but would now get the compressed one
+        assertThat(plain.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void setsVaryOnPassedThroughBody() {
+        var cache = new ResponseCache(objectMapper, properties, meterRegistry);
+
+        var response = cache.respond(request("application/cbor"), "books", 1, true, this::load);
+
+        assertThat(response.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"1-cbor\"");
+    }
+
+    @Test
+    void passesBodyThroughForOtherMediaTypes() {
+        var cache = new ResponseCache(objectMapper, properties, meterRegistry);
+
+        var response = cache.respond(request("application/cbor"), "books", 1, false, this::load);
+
+        assertThat(response.getBody()).isEqualTo(List.of("0"));
+        assertThat(cache.respond(request("application/cbor, */*;q=0.5"), "books", 1, false, this::load).getBody())
+                .isInstanceOf(List.class);
+        assertThat(cache.respond(request("application/json, application/cbor;q=0.5"), "books", 1, false, this::load).getBody())
+                .isInstanceOf(byte[].class);
+    }
+
+    @Test
+    void keepsBodiesOffHeap() {
+        properties.setOffHeap(true);
+        var cache = new ResponseCache(objectMapper, properties, meterRegistry);
+
+        cache.respond(request(null), "books", 1, false, this::load);
+        var cached = cache.respond(request(null), "books", 1, false, this::load);
+
+        assertThat(loads).hasValue(1);
+        assertThat(cached.getBody()).isEqualTo("[\"0\"]".getBytes());
+    }
+
+    @Test
+    void passesBodyThroughWhenDisabled() {
+        properties.setEnabled(false);
+        var cache = new ResponseCache(objectMapper, properties, meterRegistry);
+
+        cache.respond(request(null), "books", 1, false, this::load);
+        var response = cache.respond(request(null), "books", 1, false, this::load);
+
+        assertThat(loads).hasValue(2);
+        assertThat(response.getBody()).isEqualTo(List.of("1"));
+    }
+
+    private List<String> load() {
+        return List.of(String.valueOf(loads.getAndIncrement()));
+    }
+
+    private static ServletWebRequest request(String accept) {
+        var request = new MockHttpServletRequest("GET", "/api/authors/1/books");
+        if (accept != null) {
+            request.addHeader(HttpHeaders.ACCEPT, accept);
+        }
+        return new ServletWebRequest(request);
+    }
+
+    private static ServletWebRequest gzipRequest(String ifNoneMatch) {
+        var request = new MockHttpServletRequest("GET", "/api/authors/1/books");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request);
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readAllBytes();
+        }
+    }
+}
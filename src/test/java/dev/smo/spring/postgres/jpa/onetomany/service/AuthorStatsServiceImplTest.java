@@ -0,0 +1,121 @@
+package dev.smo.spring.postgres.jpa.onetomany.service;
+
+import dev.smo.spring.postgres.jpa.onetomany.TestcontainersConfiguration;
+import dev.smo.spring.postgres.jpa.onetomany.entities.Author;
+import dev.smo.spring.postgres.jpa.onetomany.entities.Book;
+import dev.smo.spring.postgres.jpa.onetomany.mapper.BookMapperImpl;
+import dev.smo.spring.postgres.jpa.onetomany.model.AuthorStatsDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorRepository;
+import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorStatsRepository;
+import dev.smo.spring.postgres.jpa.onetomany.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import({TestcontainersConfiguration.class, AuthorStatsServiceImpl.class, BookServiceImpl.class, BookMapperImpl.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = "app.stats.summary-table.enabled=true")
+class AuthorStatsServiceImplTest {
+
+    @Autowired
+    AuthorStatsService authorStatsService;
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    AuthorStatsRepository authorStatsRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    private Long authorId;
+
+    @BeforeEach
+    void setUp() {
+        Author a1 = Author.builder()
+                .firstName("firstname")
+                .lastName("lastname")
+                .build();
+        a1.addBook(Book.builder()
+                .title("book 1")
+                .price(new BigDecimal("10.00"))
+                .publishDate(LocalDate.of(2024, 1, 10))
+                .build());
+        authorId = authorRepository.save(a1).getId();
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void findByAuthorIdAggregatesBooksWithoutSummary() {
+        var stats = authorStatsService.findByAuthorId(authorId);
+
+        assertThat(authorStatsRepository.findById(authorId)).isEmpty();
+        assertThat(stats).contains(new AuthorStatsDTO(authorId, 1L, new BigDecimal("10.00"), new BigDecimal("10.00"),
+                new BigDecimal("10.00"), LocalDate.of(2024, 1, 10), LocalDate.of(2024, 1, 10)));
+    }
+
+    @Test
+    void summaryIsCreatedAndUpdatedWithAddedBooks() {
+        bookService.saveBookForAuthorWithId(book("20.00", LocalDate.of(2023, 6, 1)), authorId, null);
+        assertThat(authorStatsRepository.findById(authorId)).isPresent();
+        bookService.saveBookForAuthorWithId(book("31.00", LocalDate.of(2024, 12, 24)), authorId, null);
+        bookService.saveBookForAuthorWithId(book(null, null), authorId, null);
+        entityManager.flush();
+
+        var expected = new AuthorStatsDTO(authorId, 4L, new BigDecimal("10.00"), new BigDecimal("31.00"),
+                new BigDecimal("20.33"), LocalDate.of(2023, 6, 1), LocalDate.of(2024, 12, 24));
+        assertThat(authorStatsRepository.findAuthorStatsDtoById(authorId)).contains(expected);
+        assertThat(bookRepository.findAuthorStatsDtoByAuthorId(authorId)).contains(expected);
+        assertThat(authorStatsService.findByAuthorId(authorId)).contains(expected);
+    }
+
+    @Test
+    void findByAuthorIdWithoutBooks() {
+        var author = authorRepository.saveAndFlush(Author.builder().firstName("no").lastName("books").build());
+
+        assertThat(authorStatsService.findByAuthorId(author.getId()))
+                .contains(AuthorStatsDTO.builder().authorId(author.getId()).bookCount(0L).build());
+        assertThat(authorStatsService.findByAuthorId(-1L)).isEmpty();
+    }
+
+    @Test
+    void findPage() {
+        var second = authorRepository.save(Author.builder().firstName("second").lastName("author").build());
+        second.addBook(Book.builder().title("book 2").price(new BigDecimal("5.00")).build());
+        authorRepository.saveAndFlush(second);
+
+        var first = authorStatsService.findPage(null, 1);
+        assertThat(first.getContent()).extracting(AuthorStatsDTO::getAuthorId).containsExactly(authorId);
+        assertThat(first.getNextCursor()).isNotNull();
+
+        var next = authorStatsService.findPage(first.getNextCursor(), 1);
+        assertThat(next.getContent()).extracting(AuthorStatsDTO::getAuthorId).containsExactly(second.getId());
+        assertThat(next.getContent().getFirst().getBookCount()).isEqualTo(1L);
+    }
+
+    private static BookDTO book(String price, LocalDate publishDate) {
+        return BookDTO.builder()
+                .title("book")
+                .price(price == null ? null : new BigDecimal(price))
+                .publishDate(publishDate)
+                .build();
+    }
+}
@@ -0,0 +1,219 @@
+package dev.smo.spring.postgres.jpa.onetomany.service;
+
+import dev.smo.spring.postgres.jpa.onetomany.TestcontainersConfiguration;
+import dev.smo.spring.postgres.jpa.onetomany.entities.Author;
+import dev.smo.spring.postgres.jpa.onetomany.entities.Book;
+import dev.smo.spring.postgres.jpa.onetomany.exception.BadRequestException;
+import dev.smo.spring.postgres.jpa.onetomany.exception.PreconditionFailedException;
+import dev.smo.spring.postgres.jpa.onetomany.mapper.BookMapperImpl;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookDTO;
+import dev.smo.spring.postgres.jpa.onetomany.model.BookFilter;
+import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Import({TestcontainersConfiguration.class, BookServiceImpl.class, BookMapperImpl.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BookServiceImplTest {
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    private Statistics statistics;
+    private Long authorId;
+
+    @BeforeEach
+    void setUp() {
+        Author a1 = Author.builder()
+                .firstName("firstname")
+                .lastName("lastname")
+                .build();
+        a1.addBook(Book.builder()
+                .title("book 1")
+                .price(BigDecimal.valueOf(10.00))
+                .publishDate(LocalDate.of(2024, 1, 10))
+                .build());
+        authorId = authorRepository.save(a1).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void saveBookForAuthorWithIdDoesNotLoadBooks() {
+        var saved = bookService.saveBookForAuthorWithId(newBook(), authorId, null);
+        entityManager.flush();
+
+        assertThat(saved).isPresent();
+        // the locking select of the author, the version increment and the insert, the book sequence block is already allocated by setUp
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    void saveBookForAuthorWithIdAddsBookToLoadedCollection() {
+        var author = authorRepository.findByIdWithBooks(authorId).orElseThrow();
+
+        var saved = bookService.saveBookForAuthorWithId(newBook(), authorId, null);
+
+        assertThat(saved).isPresent();
+        assertThat(author.getBooks()).hasSize(2);
+        assertThat(author.getBooks()).extracting(Book::getTitle).contains("book 2");
+        // the managed author has the incremented version, not a stale one
+        assertThat(authorRepository.findVersionById(authorId)).contains(author.getVersion());
+    }
+
+    @Test
+    void saveBookForAuthorWithNotExistingId() {
+        var saved = bookService.saveBookForAuthorWithId(newBook(), 0L, null);
+        entityManager.flush();
+
+        assertThat(saved).isEmpty();
+        assertThat(statistics.getEntityInsertCount()).isZero();
+    }
+
+    @Test
+    void saveBookForAuthorWithIdIncrementsVersionOfAuthor() {
+        var version = authorRepository.findVersionById(authorId).orElseThrow();
+
+        var saved = bookService.saveBookForAuthorWithId(newBook(), authorId, version);
+
+        assertThat(saved).isPresent();
+        assertThat(authorRepository.findVersionById(authorId)).contains(version + 1);
+    }
+
+    @Test
+    void saveBookForAuthorWithOtherVersion() {
+        var version = authorRepository.findVersionById(authorId).orElseThrow();
+
+        assertThatThrownBy(() -> bookService.saveBookForAuthorWithId(newBook(), authorId, version + 1))
+                .isInstanceOf(PreconditionFailedException.class);
+        assertThat(bookService.saveBookForAuthorWithId(newBook(), 0L, version)).isEmpty();
+    }
+
+    @Test
+    void pagesOfBooksSortedByPriceDescendingHaveBooksWithoutPriceFirst() {
+        var saved = saveBooks();
+
+        var expected = saved.stream()
+                .sorted(Comparator.comparing(BookDTO::getPrice, Comparator.nullsFirst(Comparator.<BigDecimal>reverseOrder()))
+                        .thenComparing(BookDTO::getId, Comparator.reverseOrder()))
+                .map(BookDTO::getId)
+                .toList();
+        assertThat(pageThrough(new BookFilter(), "price,desc", 2)).isEqualTo(expected);
+    }
+
+    @Test
+    void pagesOfBooksSortedByPublishDateHaveBooksWithoutDateLast() {
+        var saved = saveBooks();
+
+        var expected = saved.stream()
+                .sorted(Comparator.comparing(BookDTO::getPublishDate, Comparator.nullsLast(Comparator.<LocalDate>naturalOrder()))
+                        .thenComparing(BookDTO::getId))
+                .map(BookDTO::getId)
+                .toList();
+        assertThat(pageThrough(new BookFilter(), "publishDate", 3)).isEqualTo(expected);
+    }
+
+    @Test
+    void pagesOfBooksInPriceAndDateRangesSortedByTitle() {
+        saveBooks();
+        var filter = BookFilter.builder()
+                .minPrice(BigDecimal.valueOf(10))
+                .maxPrice(BigDecimal.valueOf(30))
+                .publishedFrom(LocalDate.of(2024, 1, 1))
+                .build();
+
+        var titles = pageThrough(filter, "title,asc", 1).stream()
+                .map(id -> entityManager.find(Book.class, id).getTitle())
+                .toList();
+
+        assertThat(titles).containsExactly("a", "book 1", "c");
+    }
+
+    @Test
+    void pageOfBooksWithInvalidSortOrCursor() {
+        saveBooks();
+        var page = bookService.findPageOfBooksForAuthorWithId(authorId, new BookFilter(), "price", null, 1);
+
+        assertThatThrownBy(() -> bookService.findPageOfBooksForAuthorWithId(authorId, new BookFilter(), "author", null, 1))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> bookService.findPageOfBooksForAuthorWithId(authorId, new BookFilter(), "title", page.getNextCursor(), 1))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> bookService.findPageOfBooksForAuthorWithId(authorId,
+                BookFilter.builder().minPrice(BigDecimal.TEN).maxPrice(BigDecimal.ONE).build(), "price", null, 1))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    /**
+     * Adds books with equal and missing prices and dates to the book of the author, returns all of them.
+     */
+    private List<BookDTO> saveBooks() {
+        var books = List.of(
+                book("d", "20.00", LocalDate.of(2023, 6, 1)),
+                book("c", "20.00", LocalDate.of(2024, 1, 10)),
+                book("e", null, LocalDate.of(2024, 3, 1)),
+                book("a", "15.50", LocalDate.of(2024, 5, 1)),
+                book("b", "5.00", null),
+                book(null, null, null));
+        var saved = new ArrayList<>(bookService.findAllBooksForAuthorWithId(authorId));
+        books.forEach(book -> saved.add(bookService.saveBookForAuthorWithId(book, authorId, null).orElseThrow()));
+        entityManager.flush();
+        return saved;
+    }
+
+    private List<Long> pageThrough(BookFilter filter, String sort, int limit) {
+        var ids = new ArrayList<Long>();
+        String after = null;
+        do {
+            var page = bookService.findPageOfBooksForAuthorWithId(authorId, filter, sort, after, limit);
+            assertThat(page.getContent()).hasSizeLessThanOrEqualTo(limit);
+            page.getContent().forEach(book -> ids.add(book.getId()));
+            after = page.getNextCursor();
+        } while (after != null);
+        return ids;
+    }
+
+    private static BookDTO book(String title, String price, LocalDate publishDate) {
+        return BookDTO.builder()
+                .title(title)
+                .price(price == null ? null : new BigDecimal(price))
+                .publishDate(publishDate)
+                .build();
+    }
+
+    private static BookDTO newBook() {
+        return BookDTO.builder()
+                .title("book 2")
+                .price(BigDecimal.valueOf(20.00))
+                .publishDate(LocalDate.of(2024, 2, 20))
+                .build();
+    }
+}
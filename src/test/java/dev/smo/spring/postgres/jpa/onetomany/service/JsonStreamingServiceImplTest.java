@@ -0,0 +1,90 @@
+package dev.smo.spring.postgres.jpa.onetomany.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import dev.smo.spring.postgres.jpa.onetomany.TestcontainersConfiguration;
+import dev.smo.spring.postgres.jpa.onetomany.entities.Author;
+import dev.smo.spring.postgres.jpa.onetomany.entities.Book;
+import dev.smo.spring.postgres.jpa.onetomany.repository.AuthorRepository;
+import dev.smo.spring.postgres.jpa.onetomany.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import({TestcontainersConfiguration.class, JsonStreamingServiceImpl.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest
+class JsonStreamingServiceImplTest {
+
+    // configured like Spring Boot's mapper of the message converters
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Autowired
+    JsonStreamingService jsonStreamingService;
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    private Long authorId;
+
+    @BeforeEach
+    void setUp() {
+        var author = Author.builder().firstName("firstname").lastName("lastname").build();
+        author.addBook(Book.builder().title("book \"1\"").price(new BigDecimal("10.50")).publishDate(LocalDate.of(2024, 1, 10)).build());
+        author.addBook(Book.builder().title("book 2").build());
+        authorId = authorRepository.save(author).getId();
+        authorRepository.save(Author.builder().firstName("second").build());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void writesBooksLikeSerializedDtos() throws IOException {
+        var json = new StringWriter();
+        try (var generator = objectMapper.getFactory().createGenerator(json)) {
+            jsonStreamingService.writeBooksOfAuthor(authorId, generator);
+        }
+
+        assertThat(json.toString()).isEqualTo(objectMapper.writeValueAsString(bookRepository.findBookDtosByAuthorId(authorId)));
+    }
+
+    @Test
+    void writesEmptyArrayForUnknownAuthor() throws IOException {
+        var json = new StringWriter();
+        try (var generator = objectMapper.getFactory().createGenerator(json)) {
+            jsonStreamingService.writeBooksOfAuthor(-1L, generator);
+        }
+
+        assertThat(json.toString()).isEqualTo("[]");
+    }
+
+    @Test
+    void writesAuthorsLikeSerializedDtos() throws IOException {
+        var json = new StringWriter();
+        try (var generator = objectMapper.getFactory().createGenerator(json)) {
+            jsonStreamingService.writeAllAuthors(generator);
+        }
+
+        assertThat(json.toString()).isEqualTo(objectMapper.writeValueAsString(authorRepository.findAuthorDtos()));
+    }
+}